@@ -0,0 +1,241 @@
+package com.notekeeper.notekeeper.security;
+
+import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of authenticating one request from its bearer token.
+ *
+ * parseAndVerify measures JwtUtil alone and filter the whole of
+ * JwtAuthenticationFilter, with the verified-claims cache
+ * (jwt.verified-cache.enabled) on and off, and with stateless auth on and
+ * off. Without stateless auth the filter looks the user up through
+ * CustomUserDetailsService and PrincipalCache; the repository behind them
+ * is a stub, only reached on a cache miss.
+ *
+ * legacyFilter is the filter as it was before: extractUsername, then
+ * validateToken (extractUsername and isTokenExpired again), each parsing the
+ * token with a new parser, and a user lookup on every request. The lookup
+ * is a map here, so the database round trip it used to cost is left out.
+ *
+ * Requests cycle through tokens of distinct users, all of which fit in the
+ * caches, so with a cache on every call after warmup is a hit.
+ *
+ *   mvn -Pjmh test -Djmh.args="JwtFilterBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @State(Scope.Thread)
+    public static class Current {
+
+        @Param({ "true", "false" })
+        private boolean verifiedCache;
+
+        @Param({ "true", "false" })
+        private boolean statelessAuth;
+
+        @Param({ "1000" })
+        private int users;
+
+        private JwtUtil jwtUtil;
+        private JwtAuthenticationFilter filter;
+        private Tokens tokens;
+
+        @Setup
+        public void setup() {
+            jwtUtil = jwtUtil(verifiedCache);
+            tokens = new Tokens(jwtUtil, users);
+
+            filter = new JwtAuthenticationFilter();
+            ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+            ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService(tokens));
+            ReflectionTestUtils.setField(filter, "statelessAuth", statelessAuth);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Legacy {
+
+        @Param({ "1000" })
+        private int users;
+
+        private Key key;
+        private Tokens tokens;
+
+        @Setup
+        public void setup() {
+            key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            tokens = new Tokens(jwtUtil(false), users);
+        }
+
+        // As JwtUtil.extractAllClaims did: a new parser for every claim read
+        private Claims claims(String token) {
+            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        }
+
+        // As CustomUserDetailsService did: the whole user, on every request
+        private UserDetails loadUserByUsername(String username) {
+            User user = tokens.byUsername.get(username);
+            if (user == null) {
+                throw new UsernameNotFoundException("User not found with username: " + username);
+            }
+            return new UserPrincipal(user);
+        }
+    }
+
+    // One token per user, handed out round-robin
+    private static class Tokens {
+        private final Map<String, User> byUsername = new HashMap<>();
+        private final String[] tokens;
+        private int next;
+
+        Tokens(JwtUtil jwtUtil, int users) {
+            tokens = new String[users];
+            for (int i = 0; i < users; i++) {
+                User user = new User("user" + i, "user" + i + "@example.com", "password", "Bench", "User");
+                ReflectionTestUtils.setField(user, "id", UUID.randomUUID().toString());
+                user.setRole("USER");
+                byUsername.put(user.getUsername(), user);
+                tokens[i] = jwtUtil.generateToken(user);
+            }
+        }
+
+        String next() {
+            String token = tokens[next];
+            next = (next + 1) % tokens.length;
+            return token;
+        }
+    }
+
+    private static JwtUtil jwtUtil(boolean verifiedCache) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheEnabled", verifiedCache);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 10_000L);
+        ReflectionTestUtils.setField(jwtUtil, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "tokenVersions", tokenVersions());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    // Every user at version 0, cached after the first lookup
+    private static TokenVersions tokenVersions() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findTokenVersionById(anyString())).thenReturn(Optional.of(0));
+        TokenVersions tokenVersions = new TokenVersions();
+        ReflectionTestUtils.setField(tokenVersions, "userRepository", userRepository);
+        ReflectionTestUtils.setField(tokenVersions, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenVersions, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(tokenVersions, "maxSize", 100_000L);
+        tokenVersions.init();
+        return tokenVersions;
+    }
+
+    // The real service and PrincipalCache, over a stubbed repository
+    private static CustomUserDetailsService userDetailsService(Tokens tokens) {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findPrincipalByUsername(anyString())).thenAnswer(invocation -> Optional
+                .ofNullable(tokens.byUsername.get(invocation.<String>getArgument(0))).map(UserPrincipal::new));
+        PrincipalCache principalCache = new PrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(principalCache, "ttl", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(principalCache, "maxSize", 10_000L);
+        principalCache.init();
+
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "principalCache", principalCache);
+        return userDetailsService;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/pages");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    @Benchmark
+    public Claims parseAndVerify(Current state) {
+        return state.jwtUtil.parseAndVerify(state.tokens.next());
+    }
+
+    @Benchmark
+    public Object filter(Current state) throws Exception {
+        try {
+            state.filter.doFilter(request(state.tokens.next()), new MockHttpServletResponse(), NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // What JwtAuthenticationFilter.doFilterInternal did per request before it parsed the token once
+    @Benchmark
+    public Object legacyFilter(Legacy state) {
+        MockHttpServletRequest request = request(state.tokens.next());
+        try {
+            String jwt = request.getHeader("Authorization").substring(7);
+            String username = state.claims(jwt).getSubject();
+            UserDetails userDetails = state.loadUserByUsername(username);
+            if (state.claims(jwt).getSubject().equals(userDetails.getUsername())
+                    && !state.claims(jwt).getExpiration().before(new Date())) {
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            }
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.notekeeper.notekeeper.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded executors for work kept off request threads. Pool size, active
+ * threads and queue depth are published as executor.*{name=...}. Email does
+ * not need one: it goes through the outbox (see OutboxDispatcher).
+ *
+ * notificationStreamExecutor writes queued SSE events to clients (see
+ * NotificationStreamService); only connections with pending events use it.
+ *
+ * imageExecutor renders image variants (see ImageVariantService). It is kept
+ * small to cap the CPU spent on resizing; when it is full, work is rejected
+ * and the original image is served instead.
+ */
+@Configuration
+public class AsyncConfig {
+
+    public static final String NOTIFICATION_STREAM_EXECUTOR = "notificationStreamExecutor";
+    public static final String IMAGE_EXECUTOR = "imageExecutor";
+
+    @Value("${notification.stream.executor.size:4}")
+    private int streamExecutorSize;
+
+    @Value("${notification.stream.executor.queue-capacity:10000}")
+    private int streamQueueCapacity;
+
+    @Value("${image.executor.size:2}")
+    private int imageExecutorSize;
+
+    @Value("${image.executor.queue-capacity:200}")
+    private int imageQueueCapacity;
+
+    // Rejected drains surface as TaskRejectedException; the stream then drops that connection
+    @Bean(name = NOTIFICATION_STREAM_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationStreamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sse-");
+        executor.setCorePoolSize(streamExecutorSize);
+        executor.setMaxPoolSize(streamExecutorSize);
+        executor.setQueueCapacity(streamQueueCapacity);
+        return executor;
+    }
+
+    // Rejects with TaskRejectedException when saturated, so callers can fall back to the original
+    @Bean(name = IMAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("image-");
+        executor.setCorePoolSize(imageExecutorSize);
+        executor.setMaxPoolSize(imageExecutorSize);
+        executor.setQueueCapacity(imageQueueCapacity);
+        return executor;
+    }
+}
@@ -5,6 +5,7 @@ import com.notekeeper.notekeeper.model.User;
 import com.notekeeper.notekeeper.repository.LocationRepository;
 import com.notekeeper.notekeeper.repository.UserRepository;
 import com.notekeeper.notekeeper.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,7 +18,8 @@ public class DataInitializer {
     @Bean
     public CommandLineRunner initData(UserService userService, UserRepository userRepository,
             LocationRepository locationRepository,
-            org.springframework.jdbc.core.JdbcTemplate jdbcTemplate) {
+            org.springframework.jdbc.core.JdbcTemplate jdbcTemplate,
+            @Value("${search.backend:index}") String searchBackend) {
         return args -> {
             // Drop stale constraint if it exists to allow new NotificationType values
             try {
@@ -27,6 +29,19 @@ public class DataInitializer {
                 System.out.println("⚠️ Could not drop constraint (might not exist): " + e.getMessage());
             }
 
+            // Generated tsvector column + GIN index backing search.backend=fulltext
+            if ("fulltext".equalsIgnoreCase(searchBackend)) {
+                try {
+                    jdbcTemplate.execute("ALTER TABLE pages ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                            "GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(title, '')), 'A') || " +
+                            "setweight(to_tsvector('simple', coalesce(content, '')), 'B')) STORED");
+                    jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_pages_search_vector ON pages USING GIN (search_vector)");
+                    System.out.println("✅ Full-text search column and GIN index are in place");
+                } catch (Exception e) {
+                    System.out.println("⚠️ Could not create full-text search index: " + e.getMessage());
+                }
+            }
+
             // --- SEED SELECTION ---
             // Jessica Admin
             seedUser(userRepository, userService, locationRepository,
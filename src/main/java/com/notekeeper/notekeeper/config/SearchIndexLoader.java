@@ -0,0 +1,59 @@
+package com.notekeeper.notekeeper.config;
+
+import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.search.PageSearchDocument;
+import com.notekeeper.notekeeper.search.PageSearchIndex;
+import com.notekeeper.notekeeper.search.SearchBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rebuilds the in-memory page search index from the pages table at startup.
+ * Pages are read in id order, one batch at a time, so memory use stays flat
+ * no matter how large the table is.
+ */
+@Component
+public class SearchIndexLoader {
+
+    @Autowired
+    private PageRepository pageRepository;
+
+    @Autowired
+    private PageSearchIndex searchIndex;
+
+    @Value("${search.index.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.backend:index}")
+    private SearchBackend searchBackend;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (searchBackend != SearchBackend.INDEX) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        searchIndex.clear();
+
+        String lastId = "";
+        List<PageSearchDocument> batch;
+        do {
+            batch = pageRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, batchSize));
+            for (PageSearchDocument doc : batch) {
+                searchIndex.index(doc.getId(), doc.getUserId(), Boolean.TRUE.equals(doc.getArchived()),
+                        doc.getTitle(), doc.getContent());
+                lastId = doc.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        searchIndex.markReady();
+        System.out.println("✅ Indexed " + searchIndex.size() + " pages for search in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+}
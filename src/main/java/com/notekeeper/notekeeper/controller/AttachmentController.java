@@ -1,10 +1,18 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.UploadSessionDTO;
+import com.notekeeper.notekeeper.mapper.DTOMapper;
 import com.notekeeper.notekeeper.model.Attachment;
+import com.notekeeper.notekeeper.model.UploadSession;
+import com.notekeeper.notekeeper.service.AttachmentBlobStore;
 import com.notekeeper.notekeeper.service.AttachmentService;
+import com.notekeeper.notekeeper.service.ImageVariantService;
+import com.notekeeper.notekeeper.service.ResumableUploadService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,8 +25,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/attachments")
@@ -28,6 +40,18 @@ public class AttachmentController {
     @Autowired
     private AttachmentService attachmentService;
 
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+
+    @Autowired
+    private ResumableUploadService resumableUploadService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
     // CREATE - Upload file
     @PostMapping("/upload")
     public ResponseEntity<Attachment> uploadFile(
@@ -38,6 +62,63 @@ public class AttachmentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    // CREATE - Upload file as the raw request body, e.g. fetch(url, { method: 'PUT', body: file })
+    // (form-encoded bodies are parsed as parameters before this runs, so they are refused)
+    @PutMapping(value = "/upload/stream", consumes = "!" + MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<Attachment> uploadStream(
+            jakarta.servlet.http.HttpServletRequest request,
+            @RequestParam("pageId") String pageId,
+            @RequestParam("userId") String userId,
+            @RequestParam("fileName") String fileName) throws IOException {
+        Attachment saved = attachmentService.uploadStream(request.getInputStream(), request.getContentLengthLong(),
+                fileName, request.getContentType(), pageId, userId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    // CREATE - Resumable upload: start a session for a file of the given size
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionDTO> createUpload(
+            @RequestParam("pageId") String pageId,
+            @RequestParam("userId") String userId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam("size") long size,
+            @RequestParam(value = "contentType", required = false) String contentType) {
+        UploadSession session = resumableUploadService.create(pageId, userId, fileName, contentType, size);
+        return ResponseEntity.status(HttpStatus.CREATED).body(dtoMapper.toUploadSessionDTO(session));
+    }
+
+    // UPDATE - Resumable upload: write the request body at offset
+    @PutMapping(value = "/uploads/{id}", consumes = "!" + MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<UploadSessionDTO> writeUploadChunk(
+            jakarta.servlet.http.HttpServletRequest request,
+            @PathVariable String id,
+            @RequestParam("offset") long offset) throws IOException {
+        UploadSession session = resumableUploadService.write(id, offset, request.getInputStream());
+        return ResponseEntity.ok(dtoMapper.toUploadSessionDTO(session));
+    }
+
+    // READ - Resumable upload: how much has been received
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String id) {
+        return ResponseEntity.ok(dtoMapper.toUploadSessionDTO(resumableUploadService.getSession(id)));
+    }
+
+    // CREATE - Resumable upload: turn the received file into an attachment
+    @PostMapping("/uploads/{id}/complete")
+    public ResponseEntity<Attachment> completeUpload(
+            @PathVariable String id,
+            @RequestParam(value = "sha256", required = false) String sha256) {
+        Attachment saved = resumableUploadService.complete(id, sha256);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    // DELETE - Resumable upload: cancel and discard the received data
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<Map<String, String>> cancelUpload(@PathVariable String id) {
+        resumableUploadService.cancel(id);
+        return ResponseEntity.ok(Map.of("message", "Upload cancelled"));
+    }
+
     // READ - Get attachment by ID
     @GetMapping("/{id}")
     public ResponseEntity<Attachment> getAttachment(@PathVariable String id) {
@@ -52,44 +133,124 @@ public class AttachmentController {
         return ResponseEntity.ok(attachments);
     }
 
-    // READ - Download attachment file by ID
+    // READ - Download attachment file by ID; size=thumb|card|full gives a resized copy of an image
     @GetMapping("/{id}/download")
-    public ResponseEntity<Resource> downloadAttachment(@PathVariable String id) {
+    public ResponseEntity<Resource> downloadAttachment(@PathVariable String id,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         try {
             Attachment attachment = attachmentService.getAttachmentById(id);
-            return serveFile(Paths.get(attachment.getFilePath()), attachment.getFileType(), attachment.getFileName());
+            Path filePath = Paths.get(attachment.getFilePath());
+            boolean contentAddressed = attachmentBlobStore.holds(attachment.getFilePath(), attachment.getContentHash());
+            if (size != null && ImageVariantService.isImage(attachment.getFileType())) {
+                Path variant = imageVariantService.variantFor(filePath, size);
+                if (variant != null) {
+                    return serveVariant(variant, attachment.getFileName(), attachment.getContentHash(), size,
+                            contentAddressed, ifRange);
+                }
+                return serveVariantFallback(filePath, attachment.getFileType(), attachment.getFileName(), ifRange);
+            }
+            return serveFile(filePath, attachment.getFileType(), attachment.getFileName(),
+                    attachment.getContentHash(), contentAddressed, ifRange);
         } catch (IOException e) {
             throw new RuntimeException("Failed to download file: " + e.getMessage());
         }
     }
 
-    // READ - Download attachment by path (for covers)
+    // READ - Download attachment by path (for covers); size=thumb|card|full as above
     @GetMapping("/download-by-path")
-    public ResponseEntity<Resource> downloadByPath(@RequestParam String path) {
+    public ResponseEntity<Resource> downloadByPath(@RequestParam String path,
+            @RequestParam(required = false) String size,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
         try {
             // Safety check: ensure the path is within the uploads directory
             Path filePath = Paths.get(path);
             String contentType = Files.probeContentType(filePath);
             if (contentType == null) contentType = "image/jpeg";
-            
-            return serveFile(filePath, contentType, filePath.getFileName().toString());
+
+            String contentHash = attachmentBlobStore.hashOf(filePath);
+            if (size != null && ImageVariantService.isImage(contentType)) {
+                Path variant = imageVariantService.variantFor(filePath, size);
+                if (variant != null) {
+                    return serveVariant(variant, filePath.getFileName().toString(), contentHash, size,
+                            contentHash != null, ifRange);
+                }
+                return serveVariantFallback(filePath, contentType, filePath.getFileName().toString(), ifRange);
+            }
+            return serveFile(filePath, contentType, filePath.getFileName().toString(),
+                    contentHash, contentHash != null, ifRange);
         } catch (IOException e) {
             throw new RuntimeException("Failed to download file: " + e.getMessage());
         }
     }
 
-    private ResponseEntity<Resource> serveFile(Path filePath, String contentType, String fileName) throws IOException {
+    // A variant of a content-addressed image never changes either, so it gets its own strong ETag
+    private ResponseEntity<Resource> serveVariant(Path variant, String fileName, String contentHash, String size,
+            boolean contentAddressed, String ifRange) throws IOException {
+        String name = variant.getFileName().toString();
+        String contentType = name.endsWith(".png") ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        String variantName = fileName + name.substring(name.lastIndexOf('.'));
+        String variantHash = contentHash != null ? contentHash + "-" + size.toLowerCase() : null;
+        return serveFile(variant, contentType, variantName, variantHash, contentAddressed, ifRange);
+    }
+
+    // No variant yet: the original stands in, but must not be cached at the variant's URL or share its ETag
+    private ResponseEntity<Resource> serveVariantFallback(Path original, String contentType, String fileName,
+            String ifRange) throws IOException {
+        return serveFile(original, contentType, fileName, null, false, ifRange);
+    }
+
+    /**
+     * Validators and caching for downloads. The ETag is the content hash
+     * (strong, since the bytes behind it never change) and Last-Modified the
+     * file time; with either set, Spring answers If-None-Match and
+     * If-Modified-Since with 304. Range requests, including multiple ranges
+     * (multipart/byteranges), are served as 206 by Spring's Resource
+     * handling. Content-addressed files are cacheable for a year.
+     */
+    private ResponseEntity<Resource> serveFile(Path filePath, String contentType, String fileName,
+            String contentHash, boolean contentAddressed, String ifRange) throws IOException {
         if (!Files.exists(filePath)) {
             throw new ResourceNotFoundException("File not found on server");
         }
 
-        Resource resource = new UrlResource(filePath.toUri());
+        String etag = contentHash != null ? "\"" + contentHash + "\"" : null;
+        long lastModified = Files.getLastModifiedTime(filePath).toMillis();
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "inline; filename=\"" + fileName + "\"") // Changed to inline for browser display
-                .body(resource);
+                .lastModified(lastModified)
+                .cacheControl(contentAddressed
+                        ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                        : CacheControl.noCache().cachePrivate());
+        if (etag != null) {
+            response.eTag(etag);
+        }
+
+        if (ifRange != null && !ifRangeMatches(ifRange, etag, lastModified)) {
+            // The client's partial copy is stale: send the whole file. InputStreamResource is the one
+            // Resource type Spring does not apply the Range header to.
+            return response.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentLength(Files.size(filePath))
+                    .body(new InputStreamResource(Files.newInputStream(filePath)));
+        }
+        return response.body(new UrlResource(filePath.toUri()));
+    }
+
+    // If-Range holds either an entity tag (strong comparison) or the Last-Modified date
+    private static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return etag != null && value.equals(etag);
+        }
+        try {
+            long date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            return date == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 
     // UPDATE - Rename attachment
@@ -119,14 +119,14 @@ public class AuthController {
             System.out.println("========================================");
             
             try {
-                emailService.send2FACode(user.getEmail(), code.getCode());
+                emailService.queue2FACode(user.getEmail(), code.getCode());
             } catch (Exception e) {
                 System.out.println("❌ Failed to send 2FA email: " + e.getMessage());
             }
         }
 
         // Generate a real JWT token
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user);
 
         // Convert to DTO
         UserDTO userDTO = dtoMapper.toUserDTO(user);
@@ -230,7 +230,9 @@ public class AuthController {
         if (principal == null) {
             throw new com.notekeeper.notekeeper.exception.BadRequestException("Not authenticated");
         }
-        return ResponseEntity.ok(dtoMapper.toUserDTO(principal.getUser()));
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new com.notekeeper.notekeeper.exception.ResourceNotFoundException("User not found"));
+        return ResponseEntity.ok(dtoMapper.toUserDTO(user));
     }
 
     @PostMapping("/google-login")
@@ -286,12 +288,12 @@ public class AuthController {
         System.out.println("========================================");
         
         try {
-            emailService.send2FACode(email, twoFactorCode.getCode());
+            emailService.queue2FACode(email, twoFactorCode.getCode());
         } catch (Exception e) {
             System.out.println("❌ Failed to send 2FA email: " + e.getMessage());
         }
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user);
         UserDTO userDTO = dtoMapper.toUserDTO(user);
 
         LoginResponse response = new LoginResponse(
@@ -396,12 +398,12 @@ public class AuthController {
             System.out.println("========================================");
             
             try {
-                emailService.send2FACode(email, twoFactorCode.getCode());
+                emailService.queue2FACode(email, twoFactorCode.getCode());
             } catch (Exception emailEx) {
                 System.out.println("❌ Failed to send 2FA email");
             }
             
-            String token = jwtUtil.generateToken(user.getUsername());
+            String token = jwtUtil.generateToken(user);
             UserDTO userDTO = dtoMapper.toUserDTO(user);
             
             LoginResponse loginResponse = new LoginResponse(
@@ -453,7 +455,7 @@ public class AuthController {
         latestCode.setUsed(true);
         twoFactorCodeRepository.save(latestCode);
         
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user);
         UserDTO userDTO = dtoMapper.toUserDTO(user);
         
         LoginResponse response = new LoginResponse(true, "Login successful", token, userDTO);
@@ -477,7 +479,7 @@ public class AuthController {
 
             System.out.println("🔑 PASSWORD RESET TOKEN: " + resetToken.getToken());
             try {
-                emailService.sendPasswordResetEmail(user.getEmail(), resetToken.getToken());
+                emailService.queuePasswordResetEmail(user.getEmail(), resetToken.getToken());
             } catch (Exception e) {
                 System.out.println("❌ Failed to send reset email");
             }
@@ -533,7 +535,7 @@ public class AuthController {
         twoFactorCodeRepository.save(code);
 
         try {
-            emailService.send2FACode(user.getEmail(), code.getCode());
+            emailService.queue2FACode(user.getEmail(), code.getCode());
         } catch (Exception e) {
             throw new RuntimeException("Failed to send 2FA code: " + e.getMessage());
         }
@@ -1,15 +1,21 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.dto.NotificationDTO;
 import com.notekeeper.notekeeper.mapper.DTOMapper;
 import com.notekeeper.notekeeper.model.Notification;
 import com.notekeeper.notekeeper.model.NotificationType;
 import com.notekeeper.notekeeper.service.NotificationService;
+import com.notekeeper.notekeeper.service.NotificationStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,6 +27,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
     @Autowired
     private DTOMapper dtoMapper;
 
@@ -45,6 +54,31 @@ public class NotificationController {
         return ResponseEntity.ok(notificationDTOs);
     }
 
+    // Resolved invitations moved out of the notifications table by NotificationRetentionJob
+    @GetMapping("/my/archive")
+    public ResponseEntity<List<java.util.Map<String, Object>>> getMyArchivedNotifications(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal) {
+        return ResponseEntity.ok(notificationService.getArchivedNotifications(principal.getId()));
+    }
+
+    // Newest first; pass nextCursor back to get the following page
+    @GetMapping("/my/cursor")
+    public ResponseEntity<CursorPageDTO<NotificationDTO>> getMyNotificationsByCursor(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(notificationService.getNotificationsByCursorDTO(principal.getId(), cursor, size, withTotal));
+    }
+
+    // Server-sent events for the current user, see NotificationStreamService for the event types
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMyNotifications(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationStreamService.subscribe(principal.getId(), lastEventId);
+    }
+
     @GetMapping("/my/unread")
     public ResponseEntity<List<NotificationDTO>> getMyUnreadNotifications(
             @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal) {
@@ -104,6 +138,38 @@ public class NotificationController {
         return ResponseEntity.ok(java.util.Map.of("message", "All notifications marked as read"));
     }
 
+    // Bulk operations on the current user's notifications, each a single statement
+    @PutMapping("/my/mark-all-read")
+    public ResponseEntity<java.util.Map<String, Integer>> markAllMyNotificationsAsRead(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal) {
+        int updated = notificationService.markAllAsRead(principal.getId());
+        return ResponseEntity.ok(java.util.Map.of("updated", updated));
+    }
+
+    @PutMapping("/my/mark-read")
+    public ResponseEntity<java.util.Map<String, Integer>> markMyNotificationsAsReadBefore(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        int updated = notificationService.markAsReadBefore(principal.getId(), before);
+        return ResponseEntity.ok(java.util.Map.of("updated", updated));
+    }
+
+    @DeleteMapping("/my/read")
+    public ResponseEntity<java.util.Map<String, Integer>> deleteMyReadNotifications(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime olderThan) {
+        int deleted = notificationService.deleteReadOlderThan(principal.getId(), olderThan);
+        return ResponseEntity.ok(java.util.Map.of("deleted", deleted));
+    }
+
+    @DeleteMapping("/my")
+    public ResponseEntity<java.util.Map<String, Integer>> deleteMyNotifications(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestParam List<String> ids) {
+        int deleted = notificationService.deleteNotifications(principal.getId(), ids);
+        return ResponseEntity.ok(java.util.Map.of("deleted", deleted));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<java.util.Map<String, String>> deleteNotification(@PathVariable String id) {
         notificationService.deleteNotification(id);
@@ -1,5 +1,6 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.dto.PageDTO;
 import com.notekeeper.notekeeper.mapper.DTOMapper;
 import com.notekeeper.notekeeper.model.Page;
@@ -53,9 +54,14 @@ public class PageController {
         return ResponseEntity.status(HttpStatus.CREATED).body(dtoMapper.toPageDTO(quickNote));
     }
 
+    // List endpoints return PageSummaryDTOs unless includeContent=true
     @GetMapping("/my")
-    public ResponseEntity<List<PageDTO>> getMyPages(
-            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal) {
+    public ResponseEntity<List<?>> getMyPages(
+            @org.springframework.security.core.annotation.AuthenticationPrincipal com.notekeeper.notekeeper.security.UserPrincipal principal,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.getPageSummariesByUser(principal.getId()));
+        }
         List<Page> pages = pageService.getPagesByUser(principal.getId());
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
@@ -91,7 +97,12 @@ public class PageController {
     }
 
     @GetMapping("/workspace/{workspaceId}")
-    public ResponseEntity<List<PageDTO>> getPagesByWorkspace(@PathVariable String workspaceId) {
+    public ResponseEntity<List<?>> getPagesByWorkspace(
+            @PathVariable String workspaceId,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.getPageSummariesByWorkspace(workspaceId));
+        }
         List<Page> pages = pageService.getPagesByWorkspace(workspaceId);
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
@@ -100,7 +111,12 @@ public class PageController {
     }
 
     @GetMapping("/favorites/{userId}")
-    public ResponseEntity<List<PageDTO>> getFavoritePages(@PathVariable String userId) {
+    public ResponseEntity<List<?>> getFavoritePages(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.getFavoritePageSummaries(userId));
+        }
         List<Page> pages = pageService.getFavoritePages(userId);
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
@@ -118,7 +134,12 @@ public class PageController {
     }
 
     @GetMapping("/inbox/{userId}")
-    public ResponseEntity<List<PageDTO>> getInboxPages(@PathVariable String userId) {
+    public ResponseEntity<List<?>> getInboxPages(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.getInboxPageSummaries(userId));
+        }
         List<Page> pages = pageService.getInboxPages(userId);
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
@@ -127,7 +148,12 @@ public class PageController {
     }
 
     @GetMapping("/recent/{userId}")
-    public ResponseEntity<List<PageDTO>> getRecentPages(@PathVariable String userId) {
+    public ResponseEntity<List<?>> getRecentPages(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.getRecentPageSummaries(userId));
+        }
         List<Page> pages = pageService.getRecentPages(userId);
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
@@ -136,8 +162,15 @@ public class PageController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<PageDTO>> searchPages(@RequestParam String keyword) {
-        List<Page> pages = pageService.searchPages(keyword);
+    public ResponseEntity<List<?>> searchPages(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.searchPageSummaries(keyword, page, size));
+        }
+        List<Page> pages = pageService.searchPages(keyword, page, size).getContent();
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
                 .collect(Collectors.toList());
@@ -145,10 +178,16 @@ public class PageController {
     }
 
     @GetMapping("/search/user/{userId}")
-    public ResponseEntity<List<PageDTO>> searchUserPages(
+    public ResponseEntity<List<?>> searchUserPages(
             @PathVariable String userId,
-            @RequestParam String keyword) {
-        List<Page> pages = pageService.searchUserPages(userId, keyword);
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeContent) {
+        if (!includeContent) {
+            return ResponseEntity.ok(pageService.searchUserPageSummaries(userId, keyword, page, size));
+        }
+        List<Page> pages = pageService.searchUserPages(userId, keyword, page, size).getContent();
         List<PageDTO> pageDTOs = pages.stream()
                 .map(dtoMapper::toPageDTO)
                 .collect(Collectors.toList());
@@ -265,6 +304,16 @@ public class PageController {
         }
     }
 
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<CursorPageDTO<PageDTO>> getUserPagesByCursor(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPageDTO<Page> pages = pageService.getUserPagesByCursor(userId, cursor, size, withTotal);
+        return ResponseEntity.ok(pages.map(dtoMapper::toPageDTO));
+    }
+
     @GetMapping("/count/user/{userId}")
     public ResponseEntity<?> countUserPages(@PathVariable String userId) {
         try {
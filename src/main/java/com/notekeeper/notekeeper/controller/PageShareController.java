@@ -1,5 +1,7 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.BulkRecipientsRequest;
+import com.notekeeper.notekeeper.dto.BulkResultDTO;
 import com.notekeeper.notekeeper.model.PageShare;
 import com.notekeeper.notekeeper.service.PageShareService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +46,14 @@ public class PageShareController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    // CREATE - Share page with many users by email, see BulkResultDTO for the per-recipient outcome
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResultDTO> sharePageBulk(@RequestBody BulkRecipientsRequest request) {
+        BulkResultDTO result = pageShareService.shareAll(request.getPageId(), request.getSharedById(),
+                request.getRecipients());
+        return ResponseEntity.ok(result);
+    }
+
     // READ - Get all shares for a page
     @GetMapping("/page/{pageId}")
     public ResponseEntity<List<PageShare>> getPageShares(@PathVariable String pageId) {
@@ -1,5 +1,6 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.dto.UserDTO;
 import com.notekeeper.notekeeper.dto.ChangePasswordRequest;
 import com.notekeeper.notekeeper.mapper.DTOMapper;
@@ -93,6 +94,13 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<UserDTO>> getUsersByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return ResponseEntity.ok(userService.getUsersByCursorDTO(cursor, size, withTotal));
+    }
+
     @GetMapping("/sorted")
     public ResponseEntity<List<UserDTO>> getUsersSorted(@RequestParam String sortBy,
             @RequestParam(defaultValue = "asc") String direction) {
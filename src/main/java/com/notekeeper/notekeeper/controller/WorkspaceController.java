@@ -1,5 +1,6 @@
 package com.notekeeper.notekeeper.controller;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.dto.WorkspaceDTO;
 import com.notekeeper.notekeeper.mapper.DTOMapper;
 import com.notekeeper.notekeeper.model.Workspace;
@@ -155,6 +156,15 @@ public class WorkspaceController {
         return ResponseEntity.ok(workspaceDTOs);
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDTO<WorkspaceDTO>> getWorkspacesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPageDTO<Workspace> workspaces = workspaceService.getWorkspacesByCursor(cursor, size, withTotal);
+        return ResponseEntity.ok(workspaces.map(dtoMapper::toWorkspaceDTO));
+    }
+
     @GetMapping("/owner/{ownerId}/paginated")
     public ResponseEntity<Page<WorkspaceDTO>> getOwnerWorkspacesPaginated(
             @PathVariable String ownerId,
@@ -0,0 +1,89 @@
+package com.notekeeper.notekeeper.dto;
+
+import com.notekeeper.notekeeper.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Body of the bulk invite/share endpoints; access is the role (invitations) or permission (shares)
+public class BulkRecipientsRequest {
+    public static final int MAX_RECIPIENTS = 500;
+
+    private String workspaceId;
+    private String pageId;
+    private String sharedById;
+    private List<Recipient> recipients = new ArrayList<>();
+
+    public static class Recipient {
+        private String email;
+        private String access;
+
+        public Recipient() {
+        }
+
+        public Recipient(String email, String access) {
+            this.email = email;
+            this.access = access;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public String getAccess() {
+            return access;
+        }
+
+        public void setAccess(String access) {
+            this.access = access;
+        }
+    }
+
+    public BulkRecipientsRequest() {
+    }
+
+    public static void validateSize(List<Recipient> recipients) {
+        if (recipients == null || recipients.isEmpty()) {
+            throw new BadRequestException("At least one recipient is required");
+        }
+        if (recipients.size() > MAX_RECIPIENTS) {
+            throw new BadRequestException("At most " + MAX_RECIPIENTS + " recipients per request");
+        }
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public void setPageId(String pageId) {
+        this.pageId = pageId;
+    }
+
+    public String getSharedById() {
+        return sharedById;
+    }
+
+    public void setSharedById(String sharedById) {
+        this.sharedById = sharedById;
+    }
+
+    public List<Recipient> getRecipients() {
+        return recipients;
+    }
+
+    public void setRecipients(List<Recipient> recipients) {
+        this.recipients = recipients;
+    }
+}
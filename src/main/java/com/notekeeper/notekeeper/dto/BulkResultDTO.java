@@ -0,0 +1,75 @@
+package com.notekeeper.notekeeper.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-recipient outcome of a bulk invite/share, in request order
+public class BulkResultDTO {
+    private int succeeded;
+    private int failed;
+    private List<RecipientResult> results = new ArrayList<>();
+
+    public static class RecipientResult {
+        private String email;
+        private String status;
+        private String id;
+        private String message;
+
+        public RecipientResult() {
+        }
+
+        public RecipientResult(String email, String status, String id, String message) {
+            this.email = email;
+            this.status = status;
+            this.id = id;
+            this.message = message;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public BulkResultDTO() {
+    }
+
+    public RecipientResult succeeded(String email, String status) {
+        RecipientResult result = new RecipientResult(email, status, null, null);
+        results.add(result);
+        succeeded++;
+        return result;
+    }
+
+    public void failed(String email, String status, String message) {
+        results.add(new RecipientResult(email, status, null, message));
+        failed++;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<RecipientResult> getResults() {
+        return results;
+    }
+}
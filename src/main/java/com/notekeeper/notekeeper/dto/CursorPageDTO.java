@@ -0,0 +1,75 @@
+package com.notekeeper.notekeeper.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. Pass nextCursor back as the cursor
+ * parameter to fetch the following slice; it is null on the last slice.
+ * totalElements is only filled in when the caller asked for it.
+ */
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> items, String nextCursor, Long totalElements) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * Builds a slice from a query that fetched up to size + 1 rows; the extra
+     * row only signals that another slice exists.
+     */
+    public static <T> CursorPageDTO<T> of(List<T> rows, int size, Function<T, String> cursorOf, Long totalElements) {
+        if (rows.size() <= size) {
+            return new CursorPageDTO<>(rows, null, totalElements);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPageDTO<>(items, cursorOf.apply(items.get(size - 1)), totalElements);
+    }
+
+    public <R> CursorPageDTO<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = items.stream().<R>map(mapper).toList();
+        return new CursorPageDTO<>(mapped, nextCursor, totalElements);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
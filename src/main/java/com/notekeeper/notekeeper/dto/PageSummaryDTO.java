@@ -0,0 +1,145 @@
+package com.notekeeper.notekeeper.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Content-free view of a page for sidebars and lists, see PageRepository.PAGE_SUMMARY
+public class PageSummaryDTO {
+    public static final int EXCERPT_LENGTH = 160;
+
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>?|&[a-zA-Z#0-9]+;");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private String id;
+    private String title;
+    private String icon;
+    private String coverImage;
+    private Boolean isFavorite;
+    private Boolean isArchived;
+    private String workspaceId;
+    private String excerpt;
+    private List<String> tagIds = new ArrayList<>();
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public PageSummaryDTO() {
+    }
+
+    // Used by the JPQL constructor expression; contentStart is only the head of the content column
+    public PageSummaryDTO(String id, String title, String icon, String coverImage,
+            Boolean isFavorite, Boolean isArchived, String workspaceId, String contentStart,
+            LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.icon = icon;
+        this.coverImage = coverImage;
+        this.isFavorite = isFavorite;
+        this.isArchived = isArchived;
+        this.workspaceId = workspaceId;
+        this.excerpt = toExcerpt(contentStart);
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    private static String toExcerpt(String content) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        String plain = WHITESPACE.matcher(MARKUP.matcher(content).replaceAll(" ")).replaceAll(" ").trim();
+        if (plain.length() <= EXCERPT_LENGTH) {
+            return plain;
+        }
+        int cut = plain.lastIndexOf(' ', EXCERPT_LENGTH);
+        return plain.substring(0, cut > 0 ? cut : EXCERPT_LENGTH) + "…";
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getIcon() {
+        return icon;
+    }
+
+    public void setIcon(String icon) {
+        this.icon = icon;
+    }
+
+    public String getCoverImage() {
+        return coverImage;
+    }
+
+    public void setCoverImage(String coverImage) {
+        this.coverImage = coverImage;
+    }
+
+    public Boolean getIsFavorite() {
+        return isFavorite;
+    }
+
+    public void setIsFavorite(Boolean isFavorite) {
+        this.isFavorite = isFavorite;
+    }
+
+    public Boolean getIsArchived() {
+        return isArchived;
+    }
+
+    public void setIsArchived(Boolean isArchived) {
+        this.isArchived = isArchived;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public List<String> getTagIds() {
+        return tagIds;
+    }
+
+    public void setTagIds(List<String> tagIds) {
+        this.tagIds = tagIds;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
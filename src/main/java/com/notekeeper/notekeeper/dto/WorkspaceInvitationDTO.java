@@ -0,0 +1,91 @@
+package com.notekeeper.notekeeper.dto;
+
+import java.time.LocalDateTime;
+
+public class WorkspaceInvitationDTO {
+    private String id;
+    private String workspaceId;
+    private UserSummaryDTO invitee;
+    private UserSummaryDTO inviter;
+    private String role;
+    private String status;
+    private String notificationId;
+    private LocalDateTime invitedAt;
+    private LocalDateTime respondedAt;
+
+    public WorkspaceInvitationDTO() {
+    }
+
+    // Getters and setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public void setWorkspaceId(String workspaceId) {
+        this.workspaceId = workspaceId;
+    }
+
+    public UserSummaryDTO getInvitee() {
+        return invitee;
+    }
+
+    public void setInvitee(UserSummaryDTO invitee) {
+        this.invitee = invitee;
+    }
+
+    public UserSummaryDTO getInviter() {
+        return inviter;
+    }
+
+    public void setInviter(UserSummaryDTO inviter) {
+        this.inviter = inviter;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public void setNotificationId(String notificationId) {
+        this.notificationId = notificationId;
+    }
+
+    public LocalDateTime getInvitedAt() {
+        return invitedAt;
+    }
+
+    public void setInvitedAt(LocalDateTime invitedAt) {
+        this.invitedAt = invitedAt;
+    }
+
+    public LocalDateTime getRespondedAt() {
+        return respondedAt;
+    }
+
+    public void setRespondedAt(LocalDateTime respondedAt) {
+        this.respondedAt = respondedAt;
+    }
+}
@@ -123,7 +123,7 @@ public class DTOMapper {
         dto.setOwner(toUserSummaryDTO(workspace.getOwner()));
         dto.setIsDefault(workspace.getIsDefault());
         dto.setCreatedAt(workspace.getCreatedAt());
-        dto.setPageCount(workspace.getPages() != null ? workspace.getPages().size() : 0);
+        dto.setPageCount(workspace.getPageCount() != null ? workspace.getPageCount() : 0);
         return dto;
     }
 
@@ -175,7 +175,7 @@ public class DTOMapper {
                 tag.getName(),
                 tag.getColor(),
                 tag.getCreatedAt(),
-                tag.getPageTags() != null ? tag.getPageTags().size() : 0);
+                tag.getPageCount() != null ? tag.getPageCount() : 0);
     }
 
     // WorkspaceMember Mappings
@@ -194,6 +194,23 @@ public class DTOMapper {
         return dto;
     }
 
+    public WorkspaceInvitationDTO toWorkspaceInvitationDTO(WorkspaceInvitation invitation) {
+        if (invitation == null)
+            return null;
+
+        WorkspaceInvitationDTO dto = new WorkspaceInvitationDTO();
+        dto.setId(invitation.getId());
+        dto.setWorkspaceId(invitation.getWorkspace().getId());
+        dto.setInvitee(toUserSummaryDTO(invitation.getInvitee()));
+        dto.setInviter(toUserSummaryDTO(invitation.getInviter()));
+        dto.setRole(invitation.getRole().name());
+        dto.setStatus(invitation.getStatus());
+        dto.setNotificationId(invitation.getNotificationId());
+        dto.setInvitedAt(invitation.getInvitedAt());
+        dto.setRespondedAt(invitation.getRespondedAt());
+        return dto;
+    }
+
     // Notification Mappings
     public NotificationDTO toNotificationDTO(Notification notification) {
         if (notification == null)
@@ -211,4 +228,19 @@ public class DTOMapper {
 
         return dto;
     }
+
+    // Upload Session Mappings
+    public UploadSessionDTO toUploadSessionDTO(UploadSession session) {
+        if (session == null)
+            return null;
+
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setId(session.getId());
+        dto.setFileName(session.getFileName());
+        dto.setSize(session.getTotalSize());
+        dto.setOffset(session.getReceived());
+        dto.setStatus(session.getStatus());
+        dto.setExpiresAt(session.getExpiresAt());
+        return dto;
+    }
 }
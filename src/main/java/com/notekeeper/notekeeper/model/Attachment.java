@@ -5,7 +5,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "attachments")
+@Table(name = "attachments", indexes = {
+        @Index(name = "idx_attachments_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_attachments_file_path", columnList = "file_path")
+})
 public class Attachment {
 
     @Id
@@ -27,6 +30,10 @@ public class Attachment {
     @Column(nullable = false)
     private LocalDateTime uploadedAt;
 
+    // Hex SHA-256 of the stored bytes; null for files uploaded before it was recorded
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "page_id", nullable = false)
     private Page page;
@@ -100,6 +107,14 @@ public class Attachment {
         this.uploadedAt = uploadedAt;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public Page getPage() {
         return page;
     }
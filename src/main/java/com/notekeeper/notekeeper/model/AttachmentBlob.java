@@ -0,0 +1,53 @@
+package com.notekeeper.notekeeper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored file in the content-addressed attachment store, keyed by the
+ * SHA-256 of its bytes. refCount is the number of Attachment rows pointing
+ * at it; AttachmentBlobStore deletes the file when it drops to zero.
+ */
+@Entity
+@Table(name = "attachment_blobs")
+public class AttachmentBlob {
+
+    @Id
+    @Column(name = "hash", length = 64, updatable = false, nullable = false)
+    private String hash;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "storage_path", nullable = false)
+    private String storagePath;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public AttachmentBlob() {
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public Integer getRefCount() {
+        return refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
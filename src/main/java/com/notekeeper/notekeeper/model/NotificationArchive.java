@@ -0,0 +1,88 @@
+package com.notekeeper.notekeeper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resolved workspace invitations (ACCEPTED/DECLINED) compacted out of the
+ * notifications table. Each row holds one batch for one user as a gzipped
+ * JSON array, see NotificationService.archiveResolvedInvitations.
+ */
+@Entity
+@Table(name = "notification_archive", indexes = {
+        @Index(name = "idx_notification_archive_user", columnList = "user_id, last_created_at")
+})
+public class NotificationArchive {
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    private String id;
+
+    // No foreign key, so deleting a user is not blocked; orphans are purged by the retention job
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private String userId;
+
+    @Column(nullable = false, updatable = false)
+    private Integer notificationCount;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime firstCreatedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime lastCreatedAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime archivedAt;
+
+    // gzip(JSON array of the archived notifications)
+    @Column(nullable = false, updatable = false)
+    private byte[] payload;
+
+    public NotificationArchive() {
+    }
+
+    public NotificationArchive(String userId, int notificationCount, LocalDateTime firstCreatedAt,
+            LocalDateTime lastCreatedAt, byte[] payload) {
+        this.userId = userId;
+        this.notificationCount = notificationCount;
+        this.firstCreatedAt = firstCreatedAt;
+        this.lastCreatedAt = lastCreatedAt;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.id = UUID.randomUUID().toString();
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Integer getNotificationCount() {
+        return notificationCount;
+    }
+
+    public LocalDateTime getFirstCreatedAt() {
+        return firstCreatedAt;
+    }
+
+    public LocalDateTime getLastCreatedAt() {
+        return lastCreatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,32 @@
+package com.notekeeper.notekeeper.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Unread notification count per user, maintained by UnreadCounter so the
+ * badge is a primary-key read instead of a COUNT(*) over notifications.
+ * No foreign key to users, so deleting a user is not blocked; rows left
+ * behind are removed by UnreadCountReconciler.
+ */
+@Entity
+@Table(name = "notification_counters")
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id", updatable = false, nullable = false)
+    private String userId;
+
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
+    private Integer unread = 0;
+
+    public NotificationCounter() {
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Integer getUnread() {
+        return unread;
+    }
+}
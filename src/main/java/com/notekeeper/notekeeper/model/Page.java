@@ -1,13 +1,23 @@
 package com.notekeeper.notekeeper.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "pages")
+@Table(name = "pages", indexes = {
+        @Index(name = "idx_pages_user_updated", columnList = "user_id, is_archived, updated_at, id"),
+        @Index(name = "idx_pages_cover_image", columnList = "cover_image")
+})
+// Everything DTOMapper.toPageDTO reads, fetched with the page list in one statement
+@NamedEntityGraph(name = "Page.detail", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("workspace"),
+        @NamedAttributeNode(value = "pageTags", subgraph = "pageTags.tag")
+}, subgraphs = @NamedSubgraph(name = "pageTags.tag", attributeNodes = @NamedAttributeNode("tag")))
 public class Page {
 
     @Id
@@ -41,6 +51,7 @@ public class Page {
     private Workspace workspace;
 
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
     private List<PageTag> pageTags = new ArrayList<>();
 
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL, orphanRemoval = true)
@@ -0,0 +1,19 @@
+package com.notekeeper.notekeeper.model;
+
+// Effective access of one user to one page, weakest first
+public enum PagePermission {
+    NONE,
+    READ,
+    EDIT,
+    OWNER;
+
+    public boolean allows(String requiredPermission) {
+        if ("READ".equals(requiredPermission)) {
+            return compareTo(READ) >= 0;
+        }
+        if ("EDIT".equals(requiredPermission)) {
+            return compareTo(EDIT) >= 0;
+        }
+        return this == OWNER;
+    }
+}
@@ -32,18 +32,26 @@ public class PageShare {
 
     // Constructors
     public PageShare() {
-        this.id = UUID.randomUUID().toString();
-        this.sharedAt = LocalDateTime.now();
     }
 
     public PageShare(Page page, User sharedBy, User sharedWith, String permission) {
-        this();
         this.page = page;
         this.sharedBy = sharedBy;
         this.sharedWith = sharedWith;
         this.permission = permission;
     }
 
+    // Assigned here rather than in the constructor so save() persists instead of merging (no SELECT first)
+    @PrePersist
+    protected void onCreate() {
+        if (this.id == null) {
+            this.id = UUID.randomUUID().toString();
+        }
+        if (this.sharedAt == null) {
+            this.sharedAt = LocalDateTime.now();
+        }
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
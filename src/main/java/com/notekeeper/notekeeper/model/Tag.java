@@ -1,6 +1,7 @@
 package com.notekeeper.notekeeper.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "tags")
+@BatchSize(size = 50)
 public class Tag {
 
     @Id
@@ -23,6 +25,11 @@ public class Tag {
     @OneToMany(mappedBy = "tag", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PageTag> pageTags = new ArrayList<>();
 
+    // Maintained by PageService with atomic UPDATEs, never written from the entity
+    @Column(name = "page_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private Integer pageCount;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -71,4 +78,8 @@ public class Tag {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
 }
@@ -0,0 +1,148 @@
+package com.notekeeper.notekeeper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A resumable upload in progress. Chunks are written straight into the
+ * preallocated staging file; received is the length of the prefix written
+ * so far, which is where the client resumes. writers counts chunk requests
+ * with the file open. Completing first moves the session from UPLOADING to
+ * COMPLETING, which only succeeds with no writers and admits no new ones,
+ * so the file cannot change once it is being hashed and stored. The row and
+ * its file are removed when the upload completes, is cancelled or expires.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_expires_at", columnList = "expires_at")
+})
+public class UploadSession {
+
+    public static final String UPLOADING = "UPLOADING";
+    public static final String COMPLETING = "COMPLETING";
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    private String id;
+
+    @Column(name = "page_id", nullable = false, updatable = false)
+    private String pageId;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false, updatable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Long received = 0L;
+
+    @Column(nullable = false, length = 20)
+    private String status = UPLOADING;
+
+    @Column(nullable = false)
+    private Integer writers = 0;
+
+    @Column(name = "last_write_at")
+    private LocalDateTime lastWriteAt;
+
+    @Column(name = "staging_path", nullable = false, updatable = false)
+    private String stagingPath;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public UploadSession() {
+    }
+
+    public UploadSession(String pageId, String userId, String fileName, String contentType, long totalSize,
+            String stagingPath) {
+        this.pageId = pageId;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.totalSize = totalSize;
+        this.stagingPath = stagingPath;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.id = UUID.randomUUID().toString();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public boolean isComplete() {
+        return received.equals(totalSize);
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public String getPageId() {
+        return pageId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Long getTotalSize() {
+        return totalSize;
+    }
+
+    public Long getReceived() {
+        return received;
+    }
+
+    public void setReceived(Long received) {
+        this.received = received;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getWriters() {
+        return writers;
+    }
+
+    public LocalDateTime getLastWriteAt() {
+        return lastWriteAt;
+    }
+
+    public String getStagingPath() {
+        return stagingPath;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -10,7 +10,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created", columnList = "created_at, id")
+})
 public class User {
 
     @Id
@@ -48,6 +50,12 @@ public class User {
     @Column(name = "two_factor_enabled")
     private Boolean twoFactorEnabled = false; // 2FA enabled flag
 
+    // Only changed by UserRepository.incrementTokenVersion, see TokenVersions
+    @JsonIgnore
+    @Column(name = "token_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int tokenVersion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
     private Location location;
@@ -84,6 +92,14 @@ public class User {
     @JsonIgnore
     private List<Attachment> attachments = new ArrayList<>();
 
+    @OneToMany(mappedBy = "invitee", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @JsonIgnore
+    private List<WorkspaceInvitation> invitationsReceived = new ArrayList<>();
+
+    @OneToMany(mappedBy = "inviter", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
+    @JsonIgnore
+    private List<WorkspaceInvitation> invitationsSent = new ArrayList<>();
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -229,6 +245,10 @@ public class User {
         return updatedAt;
     }
     
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
     public Boolean getTwoFactorEnabled() {
         return twoFactorEnabled;
     }
@@ -7,7 +7,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "workspaces")
+@Table(name = "workspaces", indexes = {
+        @Index(name = "idx_workspaces_created", columnList = "created_at, id")
+})
 public class Workspace {
 
     @Id
@@ -33,9 +35,17 @@ public class Workspace {
     @OneToMany(mappedBy = "workspace", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Page> pages = new ArrayList<>();
 
+    // Maintained by PageService with atomic UPDATEs, never written from the entity
+    @Column(name = "page_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private Integer pageCount;
+
     @OneToMany(mappedBy = "workspace", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<WorkspaceMember> members = new ArrayList<>();
 
+    @OneToMany(mappedBy = "workspace", cascade = CascadeType.ALL, orphanRemoval = true)
+    private List<WorkspaceInvitation> invitations = new ArrayList<>();
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -117,4 +127,8 @@ public class Workspace {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
-}
\ No newline at end of file
+
+    public Integer getPageCount() {
+        return pageCount;
+    }
+}
@@ -0,0 +1,124 @@
+package com.notekeeper.notekeeper.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Current invitation state for one (workspace, invitee) pair. Inviting the
+ * same user again reopens this row instead of adding another one, so the
+ * unique constraint also stops duplicate pending invitations.
+ */
+@Entity
+@Table(name = "workspace_invitations", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_workspace_invitations_workspace_invitee", columnNames = { "workspace_id", "invitee_id" }),
+        @UniqueConstraint(name = "uk_workspace_invitations_notification", columnNames = "notification_id")
+}, indexes = {
+        @Index(name = "idx_workspace_invitations_workspace_status", columnList = "workspace_id, status"),
+        @Index(name = "idx_workspace_invitations_invitee_status", columnList = "invitee_id, status"),
+        @Index(name = "idx_workspace_invitations_status_invited", columnList = "status, invited_at")
+})
+public class WorkspaceInvitation {
+
+    public static final String PENDING = "PENDING";
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String DECLINED = "DECLINED";
+    public static final String EXPIRED = "EXPIRED";
+
+    @Id
+    @Column(name = "id", updatable = false, nullable = false)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "workspace_id", nullable = false)
+    private Workspace workspace;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "invitee_id", nullable = false)
+    private User invitee;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inviter_id")
+    private User inviter;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private WorkspaceRole role;
+
+    @Column(nullable = false, length = 20)
+    private String status = PENDING;
+
+    // The WORKSPACE_INVITE notification the invitee accepts or declines from
+    @Column(name = "notification_id", length = 36)
+    private String notificationId;
+
+    @Column(name = "invited_at", nullable = false)
+    private LocalDateTime invitedAt;
+
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;
+
+    public WorkspaceInvitation() {
+    }
+
+    public WorkspaceInvitation(Workspace workspace, User invitee) {
+        this.workspace = workspace;
+        this.invitee = invitee;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.id = UUID.randomUUID().toString();
+    }
+
+    // Starts (or restarts) the invitation
+    public void open(User inviter, WorkspaceRole role, String notificationId) {
+        this.inviter = inviter;
+        this.role = role;
+        this.notificationId = notificationId;
+        this.status = PENDING;
+        this.invitedAt = LocalDateTime.now();
+        this.respondedAt = null;
+    }
+
+    public void respond(String status) {
+        this.status = status;
+        this.respondedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    public User getInvitee() {
+        return invitee;
+    }
+
+    public User getInviter() {
+        return inviter;
+    }
+
+    public WorkspaceRole getRole() {
+        return role;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getNotificationId() {
+        return notificationId;
+    }
+
+    public LocalDateTime getInvitedAt() {
+        return invitedAt;
+    }
+
+    public LocalDateTime getRespondedAt() {
+        return respondedAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.AttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+    // Adds a reference, creating the row on first use; the row stays locked until the caller commits
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (hash, size, storage_path, ref_count, created_at) " +
+            "VALUES (:hash, :size, :storagePath, 1, now()) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = attachment_blobs.ref_count + 1", nativeQuery = true)
+    int acquire(@Param("hash") String hash, @Param("size") long size, @Param("storagePath") String storagePath);
+
+    @Modifying
+    @Query(value = "UPDATE attachment_blobs SET ref_count = ref_count - 1 WHERE hash = :hash", nativeQuery = true)
+    int release(@Param("hash") String hash);
+
+    @Modifying
+    @Query(value = "DELETE FROM attachment_blobs WHERE hash = :hash AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("hash") String hash);
+
+    // Locks the row the same way acquire does, creating it (unreferenced) if it is missing
+    @Modifying
+    @Query(value = "INSERT INTO attachment_blobs (hash, size, storage_path, ref_count, created_at) " +
+            "VALUES (:hash, :size, :storagePath, 0, now()) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = attachment_blobs.ref_count", nativeQuery = true)
+    int lock(@Param("hash") String hash, @Param("size") long size, @Param("storagePath") String storagePath);
+
+    @Modifying
+    @Query(value = "UPDATE attachment_blobs SET ref_count = :refCount WHERE hash = :hash", nativeQuery = true)
+    int setRefCount(@Param("hash") String hash, @Param("refCount") long refCount);
+
+    @Modifying
+    @Query(value = "DELETE FROM attachment_blobs WHERE hash = :hash", nativeQuery = true)
+    int deleteByHash(@Param("hash") String hash);
+}
@@ -2,8 +2,11 @@ package com.notekeeper.notekeeper.repository;
 
 import com.notekeeper.notekeeper.model.Attachment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +17,10 @@ public interface AttachmentRepository extends JpaRepository<Attachment, String>
     List<Attachment> findByUploadedById(String userId);
     
     void deleteByPageId(String pageId);
+
+    // Which of these stored files are still referenced
+    @Query("SELECT DISTINCT a.filePath FROM Attachment a WHERE a.filePath IN :paths")
+    List<String> findFilePathsIn(@Param("paths") Collection<String> paths);
+
+    long countByFilePath(String filePath);
 }
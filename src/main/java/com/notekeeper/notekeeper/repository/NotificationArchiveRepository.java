@@ -0,0 +1,20 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.NotificationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, String> {
+
+    List<NotificationArchive> findByUserIdOrderByLastCreatedAtDesc(String userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM notification_archive a WHERE NOT EXISTS " +
+            "(SELECT 1 FROM users u WHERE u.id = a.user_id)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -0,0 +1,59 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, String> {
+
+    @Query("SELECT c.unread FROM NotificationCounter c WHERE c.userId = :userId")
+    Optional<Integer> findUnreadByUserId(@Param("userId") String userId);
+
+    // Creates the row on first use; never goes below zero
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread) VALUES (:userId, GREATEST(:delta, 0)) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread = GREATEST(notification_counters.unread + :delta, 0)",
+            nativeQuery = true)
+    int adjust(@Param("userId") String userId, @Param("delta") int delta);
+
+    // adjust(userId, 1) for many users in one statement
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread) SELECT u.id, 1 FROM users u WHERE u.id IN (:userIds) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread = notification_counters.unread + 1", nativeQuery = true)
+    int incrementAll(@Param("userIds") Collection<String> userIds);
+
+    // Takes each user's unread pending invitations older than before off the counter, ahead of expiring them
+    @Modifying
+    @Query(value = "UPDATE notification_counters c SET unread = GREATEST(c.unread - e.unread, 0) " +
+            "FROM (SELECT n.user_id, COUNT(*) AS unread FROM notifications n " +
+            "JOIN workspace_invitations i ON i.notification_id = n.id " +
+            "WHERE i.status = 'PENDING' AND i.invited_at < :before AND n.is_read = false GROUP BY n.user_id) e " +
+            "WHERE c.user_id = e.user_id", nativeQuery = true)
+    int subtractExpiringInvitations(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query(value = "INSERT INTO notification_counters (user_id, unread) " +
+            "SELECT n.user_id, COUNT(*) FROM notifications n WHERE n.is_read = false GROUP BY n.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread = EXCLUDED.unread " +
+            "WHERE notification_counters.unread <> EXCLUDED.unread", nativeQuery = true)
+    int reconcileUnread();
+
+    // Users whose counter is above zero but who have no unread notifications left
+    @Modifying
+    @Query(value = "UPDATE notification_counters c SET unread = 0 WHERE c.unread <> 0 AND NOT EXISTS " +
+            "(SELECT 1 FROM notifications n WHERE n.user_id = c.user_id AND n.is_read = false)", nativeQuery = true)
+    int resetStale();
+
+    @Modifying
+    @Query(value = "DELETE FROM notification_counters c WHERE NOT EXISTS " +
+            "(SELECT 1 FROM users u WHERE u.id = c.user_id)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -1,8 +1,15 @@
 package com.notekeeper.notekeeper.repository;
 
 import com.notekeeper.notekeeper.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +19,61 @@ public interface NotificationRepository extends JpaRepository<Notification, Stri
     List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(String userId);
 
     long countByUserIdAndIsReadFalse(String userId);
+
+    long countByUserId(String userId);
+
+    long countByUserIdAndIdInAndIsReadFalse(String userId, Collection<String> ids);
+
+    // Keyset pagination on (createdAt, id), newest first
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findNotificationsFirst(@Param("userId") String userId, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findNotificationsAfter(@Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable limit);
+
+    // Retention (see NotificationRetentionJob); pending invitations are never touched
+    @Query("SELECT n FROM Notification n WHERE n.type = com.notekeeper.notekeeper.model.NotificationType.WORKSPACE_INVITE " +
+            "AND n.status IN ('ACCEPTED', 'DECLINED', 'EXPIRED') AND n.isRead = true AND n.createdAt < :before " +
+            "ORDER BY n.user.id, n.createdAt")
+    List<Notification> findResolvedInvitationsBefore(@Param("before") LocalDateTime before, Pageable limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications " +
+            "WHERE is_read = true AND created_at < :before AND type <> 'WORKSPACE_INVITE' LIMIT :limit)",
+            nativeQuery = true)
+    int deleteReadBatch(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    // Conditional, so only the request that actually flips the row gets 1 and adjusts the unread counter
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.isRead = false")
+    int markRead(@Param("id") String id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = false WHERE n.id = :id AND n.isRead = true")
+    int markUnread(@Param("id") String id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = :status WHERE n.id = :id")
+    int updateStatus(@Param("id") String id, @Param("status") String status);
+
+    // Bulk operations: one statement each, returning the number of rows affected
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllRead(@Param("userId") String userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true " +
+            "WHERE n.user.id = :userId AND n.isRead = false AND n.createdAt < :before")
+    int markReadBefore(@Param("userId") String userId, @Param("before") LocalDateTime before);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId AND n.isRead = true AND n.createdAt < :before")
+    int deleteReadOlderThan(@Param("userId") String userId, @Param("before") LocalDateTime before);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId AND n.id IN :ids")
+    int deleteByUserIdAndIdIn(@Param("userId") String userId, @Param("ids") Collection<String> ids);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, String> {
+
+    // Locks the claimed rows until the caller's transaction ends; concurrent dispatchers skip them
+    @Query(value = "SELECT * FROM outbox_messages WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(String status);
+
+    @Query("SELECT MIN(o.createdAt) FROM OutboxMessage o WHERE o.status = 'PENDING'")
+    LocalDateTime findOldestPendingCreatedAt();
+}
@@ -1,34 +1,66 @@
 package com.notekeeper.notekeeper.repository;
 
+import com.notekeeper.notekeeper.dto.PageSummaryDTO;
 import com.notekeeper.notekeeper.model.Page;
+import com.notekeeper.notekeeper.search.PageSearchDocument;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PageRepository extends JpaRepository<Page, String> {
 
+        // Only the head of the content column is read, enough for the list excerpt
+        String PAGE_SUMMARY = "SELECT new com.notekeeper.notekeeper.dto.PageSummaryDTO(p.id, p.title, p.icon, " +
+                        "p.coverImage, p.isFavorite, p.isArchived, p.workspace.id, SUBSTRING(p.content, 1, 400), " +
+                        "p.createdAt, p.updatedAt) FROM Page p ";
+
+        // List queries load user, workspace and tags through the Page.detail graph.
+        // Paged and limited ones only join the to-one side; tags then arrive in
+        // batches (@BatchSize on Page.pageTags and Tag) instead of one query per page.
+        @Override
+        @EntityGraph("Page.detail")
+        List<Page> findAll();
+
+        @Override
+        @EntityGraph("Page.detail")
+        List<Page> findAllById(Iterable<String> ids);
+
+        // Which of these stored files are in use as a cover image
+        @Query("SELECT DISTINCT p.coverImage FROM Page p WHERE p.coverImage IN :paths")
+        List<String> findCoverImagesIn(@Param("paths") Collection<String> paths);
+
         // findBy queries
+        @EntityGraph("Page.detail")
         List<Page> findByUserId(String userId);
 
+        @EntityGraph("Page.detail")
         List<Page> findByUserIdAndIsArchivedFalse(String userId);
 
+        @EntityGraph("Page.detail")
         List<Page> findByWorkspaceId(String workspaceId);
 
+        @EntityGraph("Page.detail")
         List<Page> findByUserIdAndIsFavoriteTrue(String userId);
 
+        @EntityGraph("Page.detail")
         List<Page> findByUserIdAndIsArchivedTrue(String userId);
 
+        @EntityGraph("Page.detail")
         List<Page> findByTitleContainingIgnoreCase(String title);
 
+        @EntityGraph("Page.detail")
         List<Page> findByCreatedAtAfter(LocalDateTime date);
 
+        @EntityGraph("Page.detail")
         List<Page> findByUserIdOrderByCreatedAtDesc(String userId);
 
         // existsBy queries
@@ -37,36 +69,154 @@ public interface PageRepository extends JpaRepository<Page, String> {
         boolean existsByWorkspaceId(String workspaceId);
 
         // Sorting
+        @EntityGraph("Page.detail")
         List<Page> findByUserId(String userId, Sort sort);
 
         // Pagination
+        @EntityGraph(attributePaths = {"user", "workspace"})
         org.springframework.data.domain.Page<Page> findAll(Pageable pageable);
 
+        @EntityGraph(attributePaths = {"user", "workspace"})
         org.springframework.data.domain.Page<Page> findByUserId(String userId, Pageable pageable);
 
+        @EntityGraph(attributePaths = {"user", "workspace"})
         org.springframework.data.domain.Page<Page> findByUserIdAndIsArchivedFalse(String userId, Pageable pageable);
 
+        @EntityGraph(attributePaths = {"user", "workspace"})
         org.springframework.data.domain.Page<Page> findByWorkspaceId(String workspaceId, Pageable pageable);
 
+        // Keyset pagination on (updatedAt, id), newest first
+        @EntityGraph(attributePaths = {"user", "workspace"})
+        @Query("SELECT p FROM Page p WHERE p.user.id = :userId AND p.isArchived = false " +
+                        "ORDER BY p.updatedAt DESC, p.id DESC")
+        List<Page> findUserPagesFirst(@Param("userId") String userId, Pageable limit);
+
+        @EntityGraph(attributePaths = {"user", "workspace"})
+        @Query("SELECT p FROM Page p WHERE p.user.id = :userId AND p.isArchived = false " +
+                        "AND (p.updatedAt < :updatedAt OR (p.updatedAt = :updatedAt AND p.id < :id)) " +
+                        "ORDER BY p.updatedAt DESC, p.id DESC")
+        List<Page> findUserPagesAfter(@Param("userId") String userId, @Param("updatedAt") LocalDateTime updatedAt,
+                        @Param("id") String id, Pageable limit);
+
         // Custom queries
+        @EntityGraph("Page.detail")
         @Query("SELECT p FROM Page p WHERE (LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                         "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
         List<Page> searchPages(@Param("keyword") String keyword);
 
+        @EntityGraph("Page.detail")
         @Query("SELECT p FROM Page p WHERE p.user.id = :userId AND " +
                         "(LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
                         "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
         List<Page> searchUserPages(@Param("userId") String userId, @Param("keyword") String keyword);
 
+        @EntityGraph(attributePaths = {"user", "workspace"})
+        @Query("SELECT p FROM Page p WHERE (LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+                        "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
+        org.springframework.data.domain.Page<Page> searchPages(@Param("keyword") String keyword, Pageable pageable);
+
+        @EntityGraph(attributePaths = {"user", "workspace"})
+        @Query("SELECT p FROM Page p WHERE p.user.id = :userId AND " +
+                        "(LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+                        "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
+        org.springframework.data.domain.Page<Page> searchUserPages(@Param("userId") String userId,
+                        @Param("keyword") String keyword, Pageable pageable);
+
+        // Full-text search over the generated search_vector column (GIN indexed, see DataInitializer)
+        @Query(value = "SELECT p.* FROM pages p, websearch_to_tsquery('simple', :keyword) q " +
+                        "WHERE p.search_vector @@ q AND p.is_archived = false " +
+                        "ORDER BY ts_rank(p.search_vector, q) DESC, p.id",
+                        countQuery = "SELECT COUNT(*) FROM pages p " +
+                                        "WHERE p.search_vector @@ websearch_to_tsquery('simple', :keyword) " +
+                                        "AND p.is_archived = false",
+                        nativeQuery = true)
+        org.springframework.data.domain.Page<Page> fullTextSearchPages(@Param("keyword") String keyword,
+                        Pageable pageable);
+
+        @Query(value = "SELECT p.* FROM pages p, websearch_to_tsquery('simple', :keyword) q " +
+                        "WHERE p.user_id = :userId AND p.search_vector @@ q AND p.is_archived = false " +
+                        "ORDER BY ts_rank(p.search_vector, q) DESC, p.id",
+                        countQuery = "SELECT COUNT(*) FROM pages p WHERE p.user_id = :userId " +
+                                        "AND p.search_vector @@ websearch_to_tsquery('simple', :keyword) " +
+                                        "AND p.is_archived = false",
+                        nativeQuery = true)
+        org.springframework.data.domain.Page<Page> fullTextSearchUserPages(@Param("userId") String userId,
+                        @Param("keyword") String keyword, Pageable pageable);
+
+        // Summary search: the same matches as above without loading page content
+        @Query(PAGE_SUMMARY + "WHERE (LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+                        "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
+        List<PageSummaryDTO> searchPageSummaries(@Param("keyword") String keyword, Pageable pageable);
+
+        @Query(PAGE_SUMMARY + "WHERE p.user.id = :userId AND " +
+                        "(LOWER(p.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+                        "OR LOWER(p.content) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND p.isArchived = false")
+        List<PageSummaryDTO> searchUserPageSummaries(@Param("userId") String userId,
+                        @Param("keyword") String keyword, Pageable pageable);
+
+        @Query(value = "SELECT p.id FROM pages p, websearch_to_tsquery('simple', :keyword) q " +
+                        "WHERE p.search_vector @@ q AND p.is_archived = false " +
+                        "ORDER BY ts_rank(p.search_vector, q) DESC, p.id",
+                        nativeQuery = true)
+        List<String> fullTextSearchPageIds(@Param("keyword") String keyword, Pageable pageable);
+
+        @Query(value = "SELECT p.id FROM pages p, websearch_to_tsquery('simple', :keyword) q " +
+                        "WHERE p.user_id = :userId AND p.search_vector @@ q AND p.is_archived = false " +
+                        "ORDER BY ts_rank(p.search_vector, q) DESC, p.id",
+                        nativeQuery = true)
+        List<String> fullTextSearchUserPageIds(@Param("userId") String userId, @Param("keyword") String keyword,
+                        Pageable pageable);
+
+        // Search index rebuild, read in id order one batch at a time
+        @Query("SELECT p.id AS id, p.user.id AS userId, p.isArchived AS archived, p.title AS title, " +
+                        "p.content AS content FROM Page p WHERE p.id > :afterId ORDER BY p.id")
+        List<PageSearchDocument> findSearchDocumentsAfter(@Param("afterId") String afterId, Pageable pageable);
+
+        // Page (with everything toPageDTO reads) plus the caller's effective permission as a
+        // PagePermission name; rows repeat per tag and matching share
+        @Query("SELECT p, CASE WHEN p.user.id = :userId THEN 'OWNER' " +
+                        "WHEN ps.permission = 'EDIT' OR wm.role IN (com.notekeeper.notekeeper.model.WorkspaceRole.OWNER, " +
+                        "com.notekeeper.notekeeper.model.WorkspaceRole.EDITOR) THEN 'EDIT' " +
+                        "WHEN ps.id IS NOT NULL OR wm.id IS NOT NULL THEN 'READ' ELSE 'NONE' END " +
+                        "FROM Page p JOIN FETCH p.user JOIN FETCH p.workspace " +
+                        "LEFT JOIN FETCH p.pageTags pt LEFT JOIN FETCH pt.tag " +
+                        "LEFT JOIN PageShare ps ON ps.page = p AND ps.sharedWith.id = :userId " +
+                        "LEFT JOIN WorkspaceMember wm ON wm.workspace = p.workspace AND wm.user.id = :userId " +
+                        "WHERE p.id = :pageId")
+        List<Object[]> findPageAccess(@Param("pageId") String pageId, @Param("userId") String userId);
+
+        @EntityGraph("Page.detail")
         @Query("SELECT p FROM Page p WHERE p.workspace.isDefault = true AND p.user.id = :userId AND p.isArchived = false")
         List<Page> findInboxPages(@Param("userId") String userId);
 
+        @EntityGraph("Page.detail")
         @Query("SELECT DISTINCT p FROM Page p JOIN p.pageTags pt WHERE pt.tag.id = :tagId AND p.isArchived = false")
         List<Page> findPagesByTagId(@Param("tagId") String tagId);
 
+        // Summary projections for the list endpoints
+        @Query(PAGE_SUMMARY + "WHERE p.user.id = :userId AND p.isArchived = false")
+        List<PageSummaryDTO> findSummariesByUserId(@Param("userId") String userId);
+
+        @Query(PAGE_SUMMARY + "WHERE p.workspace.id = :workspaceId")
+        List<PageSummaryDTO> findSummariesByWorkspaceId(@Param("workspaceId") String workspaceId);
+
+        @Query(PAGE_SUMMARY + "WHERE p.user.id = :userId AND p.isFavorite = true")
+        List<PageSummaryDTO> findFavoriteSummaries(@Param("userId") String userId);
+
+        @Query(PAGE_SUMMARY + "WHERE p.workspace.isDefault = true AND p.user.id = :userId AND p.isArchived = false")
+        List<PageSummaryDTO> findInboxSummaries(@Param("userId") String userId);
+
+        @Query(PAGE_SUMMARY + "WHERE p.user.id = :userId ORDER BY p.updatedAt DESC")
+        List<PageSummaryDTO> findRecentSummaries(@Param("userId") String userId, Pageable limit);
+
+        @Query(PAGE_SUMMARY + "WHERE p.id IN :ids")
+        List<PageSummaryDTO> findSummariesByIdIn(@Param("ids") List<String> ids);
+
         // Count queries
         long countByUserId(String userId);
 
+        long countByUserIdAndIsArchivedFalse(String userId);
+
         long countByWorkspaceId(String workspaceId);
 
         long countByUserIdAndIsFavoriteTrue(String userId);
@@ -76,5 +226,6 @@ public interface PageRepository extends JpaRepository<Page, String> {
         long countByUserIdAndCreatedAtBetween(@Param("userId") String userId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
         // Top queries
+        @EntityGraph(attributePaths = {"user", "workspace"})
         List<Page> findTop10ByUserIdOrderByUpdatedAtDesc(String userId);
 }
@@ -3,8 +3,10 @@ package com.notekeeper.notekeeper.repository;
 import com.notekeeper.notekeeper.model.PageShare;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +20,9 @@ public interface PageShareRepository extends JpaRepository<PageShare, String> {
     List<PageShare> findBySharedById(String userId);
     
     Optional<PageShare> findByPageIdAndSharedWithId(String pageId, String userId);
+
+    @Query("SELECT ps.sharedWith.id FROM PageShare ps WHERE ps.page.id = :pageId AND ps.sharedWith.id IN :userIds")
+    List<String> findSharedWithIds(@Param("pageId") String pageId, @Param("userIds") Collection<String> userIds);
     
     @Query("SELECT ps FROM PageShare ps WHERE ps.page.id = :pageId AND ps.sharedWith.email = :email")
     Optional<PageShare> findByPageIdAndSharedWithEmail(String pageId, String email);
@@ -2,6 +2,8 @@ package com.notekeeper.notekeeper.repository;
 
 import com.notekeeper.notekeeper.model.PageTag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +12,8 @@ import java.util.List;
 public interface PageTagRepository extends JpaRepository<PageTag, String> {
     List<PageTag> findByPageId(String pageId);
     void deleteByPageId(String pageId);
+
+    // (pageId, tagId) pairs for a batch of pages
+    @Query("SELECT pt.page.id, pt.tag.id FROM PageTag pt WHERE pt.page.id IN :pageIds")
+    List<Object[]> findTagIdsByPageIds(@Param("pageIds") List<String> pageIds);
 }
@@ -4,10 +4,12 @@ import com.notekeeper.notekeeper.model.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +41,18 @@ public interface TagRepository extends JpaRepository<Tag, String> {
     @Query("SELECT COUNT(pt) FROM PageTag pt WHERE pt.tag.id = :tagId")
     long countPagesByTagId(@Param("tagId") String tagId);
 
+    // Denormalized page_count
+    @Modifying
+    @Query("UPDATE Tag t SET t.pageCount = t.pageCount + :delta WHERE t.id IN :tagIds")
+    int adjustPageCount(@Param("tagIds") Collection<String> tagIds, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE tags t SET page_count = c.total FROM " +
+            "(SELECT tg.id, COUNT(DISTINCT pt.page_id) AS total FROM tags tg " +
+            "LEFT JOIN page_tags pt ON pt.tag_id = tg.id GROUP BY tg.id) c " +
+            "WHERE c.id = t.id AND t.page_count <> c.total", nativeQuery = true)
+    int reconcilePageCounts();
+
     // Top queries
     List<Tag> findTop10ByOrderByCreatedAtDesc();
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.UploadSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UploadSession s WHERE s.id = :id")
+    Optional<UploadSession> findByIdForUpdate(@Param("id") String id);
+
+    // The claims and releases below each run in their own short transaction: chunks are written outside one
+
+    // Registers a chunk writer; fails once the session is completing or if offset is past the received prefix
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.writers = s.writers + 1, s.lastWriteAt = :now " +
+            "WHERE s.id = :id AND s.status = 'UPLOADING' AND s.received >= :offset")
+    int claimWrite(@Param("id") String id, @Param("offset") long offset, @Param("now") LocalDateTime now);
+
+    // Unregisters a writer, moving received forward to end if [offset, end) continues the received prefix
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.writers = s.writers - 1, s.expiresAt = :expiresAt, " +
+            "s.received = CASE WHEN s.received >= :offset AND s.received < :end THEN :end ELSE s.received END " +
+            "WHERE s.id = :id AND s.writers > 0")
+    int releaseWrite(@Param("id") String id, @Param("offset") long offset, @Param("end") long end,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Writers whose last claim is older than staleBefore are taken to have died with their process
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.status = 'COMPLETING', s.writers = 0, s.expiresAt = :expiresAt " +
+            "WHERE s.id = :id AND s.status = 'UPLOADING' AND s.received = s.totalSize " +
+            "AND (s.writers = 0 OR s.lastWriteAt < :staleBefore)")
+    int claimComplete(@Param("id") String id, @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UploadSession s SET s.status = 'UPLOADING' WHERE s.id = :id AND s.status = 'COMPLETING'")
+    int reopen(@Param("id") String id);
+
+    @Query("SELECT s.stagingPath FROM UploadSession s WHERE s.stagingPath IN :paths")
+    List<String> findStagingPathsIn(@Param("paths") Collection<String> paths);
+
+    @Query("SELECT s FROM UploadSession s WHERE s.expiresAt < :now ORDER BY s.expiresAt")
+    List<UploadSession> findExpired(@Param("now") LocalDateTime now, Pageable pageable);
+}
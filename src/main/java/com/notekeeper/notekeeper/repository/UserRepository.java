@@ -1,14 +1,17 @@
 package com.notekeeper.notekeeper.repository;
 
 import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.security.UserPrincipal;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +21,26 @@ public interface UserRepository extends JpaRepository<User, String> {
     // findBy queries
     Optional<User> findByUsername(String username);
 
+    // Only the columns the authentication filter needs (skips the profile join)
+    @Query("SELECT new com.notekeeper.notekeeper.security.UserPrincipal(u.id, u.username, u.role, true) " +
+            "FROM User u WHERE u.username = :username")
+    Optional<UserPrincipal> findPrincipalByUsername(@Param("username") String username);
+
     Optional<User> findByEmail(String email);
 
+    // See TokenVersions
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") String id);
+
+    // Leaves the persistence context alone: the entity never writes token_version, so a stale copy is harmless
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") String id);
+
+    // Fetches the profile too: the inverse one-to-one cannot be lazy and would otherwise cost a query per user
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.userProfile WHERE u.email IN :emails")
+    List<User> findByEmailIn(@Param("emails") Collection<String> emails);
+
     List<User> findByFirstName(String firstName);
 
     List<User> findByLastName(String lastName);
@@ -51,6 +72,14 @@ public interface UserRepository extends JpaRepository<User, String> {
     @Query("SELECT u FROM User u WHERE u.location.name = :locationName")
     Page<User> findByLocationNamePaginated(@Param("locationName") String locationName, Pageable pageable);
 
+    // Keyset pagination on (createdAt, id), newest first
+    @Query("SELECT u FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findUsersFirst(Pageable limit);
+
+    @Query("SELECT u FROM User u WHERE u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findUsersAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable limit);
+
     // Custom queries
     @Query("SELECT u FROM User u WHERE LOWER(u.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
             "OR LOWER(u.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
@@ -0,0 +1,61 @@
+package com.notekeeper.notekeeper.repository;
+
+import com.notekeeper.notekeeper.model.WorkspaceInvitation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WorkspaceInvitationRepository extends JpaRepository<WorkspaceInvitation, String> {
+
+    Optional<WorkspaceInvitation> findByNotificationId(String notificationId);
+
+    Optional<WorkspaceInvitation> findByWorkspaceIdAndInviteeId(String workspaceId, String inviteeId);
+
+    List<WorkspaceInvitation> findByWorkspaceIdAndInviteeIdIn(String workspaceId, Collection<String> inviteeIds);
+
+    @Query("SELECT i FROM WorkspaceInvitation i JOIN FETCH i.invitee LEFT JOIN FETCH i.inviter " +
+            "WHERE i.workspace.id = :workspaceId AND i.status = :status ORDER BY i.invitedAt DESC")
+    List<WorkspaceInvitation> findByWorkspaceIdAndStatus(@Param("workspaceId") String workspaceId,
+            @Param("status") String status);
+
+    // [notification id, user id, is_read] of the invitations expirePendingBefore will expire, locked until commit
+    @Query(value = "SELECT n.id, n.user_id, n.is_read FROM notifications n " +
+            "JOIN workspace_invitations i ON i.notification_id = n.id " +
+            "WHERE i.status = 'PENDING' AND i.invited_at < :before FOR UPDATE OF n", nativeQuery = true)
+    List<Object[]> lockPendingNotificationsBefore(@Param("before") LocalDateTime before);
+
+    // Run before expirePendingBefore, which changes the rows this selects
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE notifications SET status = 'EXPIRED', is_read = true WHERE id IN (SELECT i.notification_id " +
+            "FROM workspace_invitations i WHERE i.status = 'PENDING' AND i.invited_at < :before)", nativeQuery = true)
+    int expirePendingNotificationsBefore(@Param("before") LocalDateTime before);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WorkspaceInvitation i SET i.status = 'EXPIRED', i.respondedAt = :now " +
+            "WHERE i.status = 'PENDING' AND i.invitedAt < :before")
+    int expirePendingBefore(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    // One-off copy of invitations that so far only existed as notification metadata
+    @Modifying
+    @Query(value = "INSERT INTO workspace_invitations " +
+            "(id, workspace_id, invitee_id, inviter_id, role, status, notification_id, invited_at, responded_at) " +
+            "SELECT DISTINCT ON (n.user_id, w.id) gen_random_uuid()::text, w.id, n.user_id, u.id, " +
+            "UPPER(n.metadata::jsonb ->> 'role'), COALESCE(n.status, 'PENDING'), n.id, n.created_at, " +
+            "CASE WHEN n.status = 'PENDING' THEN NULL ELSE n.created_at END " +
+            "FROM notifications n " +
+            "JOIN workspaces w ON w.id = n.metadata::jsonb ->> 'workspaceId' " +
+            "LEFT JOIN users u ON u.id = n.metadata::jsonb ->> 'inviterId' " +
+            "WHERE n.type = 'WORKSPACE_INVITE' AND n.metadata LIKE '{%' " +
+            "AND UPPER(n.metadata::jsonb ->> 'role') IN ('VIEWER', 'EDITOR') " +
+            "ORDER BY n.user_id, w.id, n.created_at DESC " +
+            "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int backfillFromNotifications();
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +21,9 @@ public interface WorkspaceMemberRepository extends JpaRepository<WorkspaceMember
 
     boolean existsByWorkspaceIdAndUserId(String workspaceId, String userId);
 
+    @Query("SELECT wm.user.id FROM WorkspaceMember wm WHERE wm.workspace.id = :workspaceId AND wm.user.id IN :userIds")
+    List<String> findMemberUserIds(@Param("workspaceId") String workspaceId, @Param("userIds") Collection<String> userIds);
+
     @Query("SELECT wm FROM WorkspaceMember wm WHERE wm.workspace.owner.id = :ownerId AND wm.role = 'OWNER'")
     List<WorkspaceMember> findOwnedWorkspacesByOwnerId(@Param("ownerId") String ownerId);
 
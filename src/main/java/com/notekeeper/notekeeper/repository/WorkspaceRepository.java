@@ -5,10 +5,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,6 +39,15 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, String> {
 
     Page<Workspace> findByOwnerId(String ownerId, Pageable pageable);
 
+    // Keyset pagination on (createdAt, id), newest first
+    @Query("SELECT w FROM Workspace w ORDER BY w.createdAt DESC, w.id DESC")
+    List<Workspace> findWorkspacesFirst(Pageable limit);
+
+    @Query("SELECT w FROM Workspace w WHERE w.createdAt < :createdAt OR (w.createdAt = :createdAt AND w.id < :id) " +
+            "ORDER BY w.createdAt DESC, w.id DESC")
+    List<Workspace> findWorkspacesAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id,
+            Pageable limit);
+
     // Custom queries
     @Query("SELECT w FROM Workspace w WHERE LOWER(w.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Workspace> searchWorkspaces(@Param("keyword") String keyword);
@@ -44,9 +55,26 @@ public interface WorkspaceRepository extends JpaRepository<Workspace, String> {
     @Query("SELECT COUNT(p) FROM Page p WHERE p.workspace.id = :workspaceId")
     long countPagesByWorkspaceId(@Param("workspaceId") String workspaceId);
 
+    // (ownerId, caller's member role or null) for the permission check
+    @Query("SELECT w.owner.id, wm.role FROM Workspace w " +
+            "LEFT JOIN WorkspaceMember wm ON wm.workspace = w AND wm.user.id = :userId WHERE w.id = :workspaceId")
+    List<Object[]> findWorkspaceAccess(@Param("workspaceId") String workspaceId, @Param("userId") String userId);
+
     @Query("SELECT w FROM Workspace w WHERE w.owner.id = :ownerId AND SIZE(w.pages) = 0")
     List<Workspace> findEmptyWorkspaces(@Param("ownerId") String ownerId);
 
+    // Denormalized page_count
+    @Modifying
+    @Query("UPDATE Workspace w SET w.pageCount = w.pageCount + :delta WHERE w.id = :workspaceId")
+    int adjustPageCount(@Param("workspaceId") String workspaceId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE workspaces w SET page_count = c.total FROM " +
+            "(SELECT ws.id, COUNT(p.id) AS total FROM workspaces ws " +
+            "LEFT JOIN pages p ON p.workspace_id = ws.id GROUP BY ws.id) c " +
+            "WHERE c.id = w.id AND w.page_count <> c.total", nativeQuery = true)
+    int reconcilePageCounts();
+
     // Count queries
     long countByOwnerId(String ownerId);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.notekeeper.notekeeper.search;
+
+/**
+ * Projection of the page columns the search index needs, used when the index
+ * is rebuilt so that workspaces, tags and attachments are never loaded.
+ */
+public interface PageSearchDocument {
+
+    String getId();
+
+    String getUserId();
+
+    Boolean getArchived();
+
+    String getTitle();
+
+    String getContent();
+}
@@ -0,0 +1,281 @@
+package com.notekeeper.notekeeper.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over page titles and content, ranked with BM25.
+ *
+ * Every query term is matched as a prefix so that results keep up with the
+ * search box while the user is still typing, which is what the old
+ * LIKE '%keyword%' queries gave us. Exact term matches score higher than
+ * prefix expansions. All query terms must match (AND semantics).
+ */
+@Component
+public class PageSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Title terms count as this many occurrences in the body
+    private static final int TITLE_BOOST = 3;
+
+    private static final double PREFIX_MATCH_WEIGHT = 0.8;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private static final Comparator<Map.Entry<String, Double>> BY_SCORE = Map.Entry.<String, Double>comparingByValue()
+            .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (pageId -> weighted term frequency)
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+
+    private final Map<String, IndexedPage> documents = new HashMap<>();
+
+    private long totalLength;
+
+    private volatile boolean ready;
+
+    private record IndexedPage(String userId, boolean archived, int length, String[] terms) {
+    }
+
+    private record TermMatch(Map<String, Integer> posting, double weightedIdf) {
+    }
+
+    /**
+     * Adds a page to the index, replacing any previous version of it.
+     */
+    public void index(String pageId, String userId, boolean archived, String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String term : Tokenizer.tokenize(title)) {
+            frequencies.merge(term, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String term : Tokenizer.tokenize(content)) {
+            frequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(pageId);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(pageId, entry.getValue());
+            }
+            documents.put(pageId, new IndexedPage(userId, archived, length,
+                    frequencies.keySet().toArray(new String[0])));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Flips the archived flag without re-tokenizing the page.
+     */
+    public void setArchived(String pageId, boolean archived) {
+        lock.writeLock().lock();
+        try {
+            IndexedPage doc = documents.get(pageId);
+            if (doc != null && doc.archived() != archived) {
+                documents.put(pageId, new IndexedPage(doc.userId(), archived, doc.length(), doc.terms()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String pageId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(pageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(String pageId) {
+        IndexedPage doc = documents.remove(pageId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms()) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(pageId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= doc.length();
+    }
+
+    /**
+     * Ranks non-archived pages matching every term of the query.
+     *
+     * @param userId restricts the search to pages owned by this user, or null for all pages
+     * @param page   zero-based result page
+     * @param size   results per page
+     */
+    public SearchHits search(String query, String userId, int page, int size) {
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty() || size <= 0 || page < 0) {
+            return SearchHits.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return SearchHits.empty();
+            }
+            double averageLength = (double) totalLength / documents.size();
+
+            List<List<TermMatch>> queryTerms = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                List<TermMatch> matches = expand(term);
+                if (matches.isEmpty()) {
+                    return SearchHits.empty();
+                }
+                queryTerms.add(matches);
+            }
+            // Start from the rarest term so the candidate set is as small as possible
+            queryTerms.sort(Comparator.comparingLong(PageSearchIndex::postingCount));
+
+            Map<String, Double> scores = new HashMap<>();
+            for (TermMatch match : queryTerms.get(0)) {
+                for (Map.Entry<String, Integer> entry : match.posting().entrySet()) {
+                    IndexedPage doc = documents.get(entry.getKey());
+                    if (doc.archived() || (userId != null && !userId.equals(doc.userId()))) {
+                        continue;
+                    }
+                    scores.merge(entry.getKey(), score(match, entry.getValue(), doc, averageLength), Math::max);
+                }
+            }
+
+            for (int i = 1; i < queryTerms.size() && !scores.isEmpty(); i++) {
+                List<TermMatch> matches = queryTerms.get(i);
+                Iterator<Map.Entry<String, Double>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<String, Double> candidate = candidates.next();
+                    IndexedPage doc = documents.get(candidate.getKey());
+                    double best = 0;
+                    for (TermMatch match : matches) {
+                        Integer tf = match.posting().get(candidate.getKey());
+                        if (tf != null) {
+                            best = Math.max(best, score(match, tf, doc, averageLength));
+                        }
+                    }
+                    if (best == 0) {
+                        candidates.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + best);
+                    }
+                }
+            }
+
+            return topHits(scores, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Posting lists of the term itself and of up to MAX_PREFIX_EXPANSIONS longer terms starting with it
+    private List<TermMatch> expand(String term) {
+        List<TermMatch> matches = new ArrayList<>();
+        SortedMap<String, Map<String, Integer>> prefixed = postings.subMap(term, term + Character.MAX_VALUE);
+        for (Map.Entry<String, Map<String, Integer>> entry : prefixed.entrySet()) {
+            if (matches.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            Map<String, Integer> posting = entry.getValue();
+            double weight = entry.getKey().equals(term) ? 1.0 : PREFIX_MATCH_WEIGHT;
+            double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            matches.add(new TermMatch(posting, weight * idf));
+        }
+        return matches;
+    }
+
+    private static long postingCount(List<TermMatch> matches) {
+        long count = 0;
+        for (TermMatch match : matches) {
+            count += match.posting().size();
+        }
+        return count;
+    }
+
+    private static double score(TermMatch match, int tf, IndexedPage doc, double averageLength) {
+        return match.weightedIdf() * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * doc.length() / averageLength));
+    }
+
+    private static SearchHits topHits(Map<String, Double> scores, int page, int size) {
+        long offset = (long) page * size;
+        if (offset >= scores.size()) {
+            return new SearchHits(List.of(), scores.size());
+        }
+
+        int limit = (int) (offset + size);
+        PriorityQueue<Map.Entry<String, Double>> top = new PriorityQueue<>(BY_SCORE);
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(BY_SCORE.reversed());
+        List<String> pageIds = new ArrayList<>(size);
+        for (int i = (int) offset; i < ranked.size(); i++) {
+            pageIds.add(ranked.get(i).getKey());
+        }
+        return new SearchHits(pageIds, scores.size());
+    }
+
+    /**
+     * Drops all indexed pages. Until {@link #markReady()} is called, callers
+     * should answer searches from the database instead.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
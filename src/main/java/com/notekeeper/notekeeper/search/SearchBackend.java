@@ -0,0 +1,10 @@
+package com.notekeeper.notekeeper.search;
+
+/**
+ * Where page searches are answered from, selected with the search.backend property.
+ */
+public enum SearchBackend {
+    INDEX,     // In-memory BM25 inverted index (PageSearchIndex)
+    FULLTEXT,  // PostgreSQL tsvector column with a GIN index
+    LIKE       // Plain LIKE '%keyword%' scans over title and content
+}
@@ -0,0 +1,31 @@
+package com.notekeeper.notekeeper.search;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of ranked search results: the matching page ids in score order
+ * and the total number of pages that matched the query.
+ */
+public class SearchHits {
+
+    private final List<String> pageIds;
+    private final long totalHits;
+
+    public SearchHits(List<String> pageIds, long totalHits) {
+        this.pageIds = pageIds;
+        this.totalHits = totalHits;
+    }
+
+    public static SearchHits empty() {
+        return new SearchHits(Collections.emptyList(), 0);
+    }
+
+    public List<String> getPageIds() {
+        return pageIds;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+}
@@ -0,0 +1,42 @@
+package com.notekeeper.notekeeper.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Splits page titles, page content and search queries into index terms.
+ * Markup from the rich text editor is stripped, accents are folded and
+ * everything is lower-cased so "Café" and "cafe" hit the same posting list.
+ */
+public final class Tokenizer {
+
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>|&[a-zA-Z#0-9]+;");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        String plain = MARKUP.matcher(text).replaceAll(" ");
+        String folded = DIACRITICS.matcher(Normalizer.normalize(plain, Normalizer.Form.NFD)).replaceAll("");
+
+        for (String term : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            terms.add(term.length() > MAX_TERM_LENGTH ? term.substring(0, MAX_TERM_LENGTH) : term);
+        }
+        return terms;
+    }
+}
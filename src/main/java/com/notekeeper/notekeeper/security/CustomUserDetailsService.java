@@ -1,6 +1,5 @@
 package com.notekeeper.notekeeper.security;
 
-import com.notekeeper.notekeeper.model.User;
 import com.notekeeper.notekeeper.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,11 +13,12 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-
-        return new UserPrincipal(user);
+        return principalCache.get(username, name -> userRepository.findPrincipalByUsername(name)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + name)));
     }
 }
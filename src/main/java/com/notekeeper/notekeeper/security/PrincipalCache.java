@@ -0,0 +1,59 @@
+package com.notekeeper.notekeeper.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Authenticated principals by username, so JwtAuthenticationFilter does not
+ * query the users table on every request. UserService evicts an entry when
+ * the user is updated, changes or resets the password, or is deleted.
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.principal-cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${security.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, UserPrincipal> principals;
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principal");
+    }
+
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return principals.get(username, loader);
+    }
+
+    // Applied after the surrounding transaction commits so a concurrent request cannot re-cache the old row
+    public void evict(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            principals.invalidate(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                principals.invalidate(username);
+            }
+        });
+    }
+}
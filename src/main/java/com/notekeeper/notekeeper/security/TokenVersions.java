@@ -0,0 +1,71 @@
+package com.notekeeper.notekeeper.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notekeeper.notekeeper.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Per-user token version embedded in every JWT ("ver" claim). Revoking
+ * increments users.token_version, which rejects every token issued with a
+ * lower version; tokens are stamped with the column's value at login.
+ *
+ * The versions are cached here so requests do not query the users table.
+ * The instance that revokes drops its entry once the transaction commits;
+ * other instances pick the new version up when their entry expires, after
+ * at most jwt.token-versions.ttl.
+ */
+@Component
+public class TokenVersions {
+
+    // Users that no longer exist: every token they hold is revoked
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.token-versions.ttl:1m}")
+    private Duration ttl;
+
+    @Value("${jwt.token-versions.max-size:100000}")
+    private long maxSize;
+
+    private Cache<String, Integer> versions;
+
+    @PostConstruct
+    public void init() {
+        versions = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "jwt.token-versions");
+    }
+
+    public int current(String userId) {
+        return versions.get(userId, id -> userRepository.findTokenVersionById(id).orElse(DELETED));
+    }
+
+    // The cache entry is dropped after commit so a concurrent request cannot re-cache the old version
+    public void revoke(String userId) {
+        userRepository.incrementTokenVersion(userId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.invalidate(userId);
+            }
+        });
+    }
+}
@@ -7,36 +7,54 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
+/**
+ * Immutable snapshot of the authenticated user, small enough to cache
+ * (see PrincipalCache). It carries no password: logins are checked in
+ * AuthController, requests only ever present a JWT.
+ */
 public class UserPrincipal implements UserDetails {
 
-    private final User user;
+    private final String id;
+    private final String username;
+    private final String role;
+    private final boolean enabled;
+    private final List<GrantedAuthority> authorities;
 
     public UserPrincipal(User user) {
-        this.user = user;
+        this(user.getId(), user.getUsername(), user.getRole(), true);
     }
 
-    public User getUser() {
-        return user;
+    public UserPrincipal(String id, String username, String role, boolean enabled) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.enabled = enabled;
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
     }
 
     public String getId() {
-        return user.getId();
+        return id;
+    }
+
+    public String getRole() {
+        return role;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return null;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -56,6 +74,6 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return true;
+        return enabled;
     }
 }
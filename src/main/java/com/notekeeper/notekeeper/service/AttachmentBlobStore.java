@@ -0,0 +1,137 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.repository.AttachmentBlobRepository;
+import com.notekeeper.notekeeper.repository.AttachmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for attachment files. Each distinct file is
+ * stored once, at blobs/ab/cd/abcd... under file.upload.dir (sharded by the
+ * first four hex digits of its SHA-256), and reference-counted in
+ * attachment_blobs across Attachment rows.
+ *
+ * Both store() and release() lock the blob row before touching the file,
+ * so a concurrent upload of the same content cannot lose its file to a
+ * delete of the last old reference.
+ */
+@Service
+public class AttachmentBlobStore {
+
+    @Autowired
+    private AttachmentBlobRepository attachmentBlobRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.upload.dir:uploads/attachments/}")
+    private String uploadDir;
+
+    private Counter stored;
+    private Counter deduplicated;
+
+    @PostConstruct
+    void init() {
+        stored = Counter.builder("attachment.blobs.stored").description("New files written to the attachment store")
+                .register(meterRegistry);
+        deduplicated = Counter.builder("attachment.blobs.deduplicated")
+                .description("Uploads whose content was already stored").register(meterRegistry);
+    }
+
+    // A fresh file in the upload directory's filesystem, so store() can rename it into place
+    public Path newStagingFile() throws IOException {
+        Path staging = Paths.get(uploadDir, ".staging");
+        Files.createDirectories(staging);
+        return staging.resolve(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Adds a reference to the blob with this hash, moving the staged file
+     * into place if the content is new and discarding it otherwise.
+     * Returns the blob's path, for Attachment.filePath.
+     */
+    @Transactional
+    public String store(Path stagedFile, String hash, long size) throws IOException {
+        Path target = pathOf(hash);
+        attachmentBlobRepository.acquire(hash, size, target.toString());
+        if (Files.exists(target)) {
+            Files.delete(stagedFile);
+            deduplicated.increment();
+        } else {
+            Files.createDirectories(target.getParent());
+            Files.move(stagedFile, target, StandardCopyOption.ATOMIC_MOVE);
+            stored.increment();
+        }
+        return target.toString();
+    }
+
+    // Drops one reference and deletes the file with the last one
+    @Transactional
+    public void release(String hash) {
+        attachmentBlobRepository.release(hash);
+        if (attachmentBlobRepository.deleteIfUnreferenced(hash) > 0) {
+            try {
+                Files.deleteIfExists(pathOf(hash));
+            } catch (IOException e) {
+                // Log but continue; the file is unreferenced either way
+                System.err.println("Failed to delete physical file: " + e.getMessage());
+            }
+            imageVariantService.deleteVariants(pathOf(hash));
+        }
+    }
+
+    /**
+     * For UploadGarbageCollector: re-checks a blob no attachment pointed at,
+     * under the row lock store() also takes. If it is still unreferenced the
+     * file is moved to quarantineTarget and the row dropped; otherwise
+     * ref_count is reset to the real count, since attachments deleted by
+     * cascade never release their blob.
+     */
+    @Transactional
+    public boolean reclaim(String hash, Path quarantineTarget) throws IOException {
+        Path path = pathOf(hash);
+        attachmentBlobRepository.lock(hash, Files.size(path), path.toString());
+        long references = attachmentRepository.countByFilePath(path.toString());
+        if (references > 0) {
+            attachmentBlobRepository.setRefCount(hash, references);
+            return false;
+        }
+        attachmentBlobRepository.deleteByHash(hash);
+        Files.createDirectories(quarantineTarget.getParent());
+        Files.move(path, quarantineTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return true;
+    }
+
+    // False for files stored before the blob store, which belong to their attachment alone
+    public boolean holds(String filePath, String hash) {
+        return hash != null && pathOf(hash).toString().equals(filePath);
+    }
+
+    // The hash a blob path was stored under, or null for any other path
+    public String hashOf(Path filePath) {
+        String name = filePath.getFileName().toString();
+        return name.matches("[0-9a-f]{64}") && pathOf(name).normalize().equals(filePath.normalize()) ? name : null;
+    }
+
+    public Path pathOf(String hash) {
+        return Paths.get(uploadDir, "blobs", hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+}
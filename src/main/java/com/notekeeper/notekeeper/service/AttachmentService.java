@@ -4,22 +4,31 @@ import com.notekeeper.notekeeper.exception.BadRequestException;
 import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
 import com.notekeeper.notekeeper.model.Attachment;
 import com.notekeeper.notekeeper.model.Page;
+import com.notekeeper.notekeeper.model.UploadSession;
 import com.notekeeper.notekeeper.model.User;
 import com.notekeeper.notekeeper.repository.AttachmentRepository;
 import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.repository.UploadSessionRepository;
 import com.notekeeper.notekeeper.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class AttachmentService {
@@ -33,15 +42,44 @@ public class AttachmentService {
     @Autowired
     private UserRepository userRepository;
 
-    private final String uploadDir = "uploads/attachments/";
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
 
+    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Where the servlet container buffers multipart uploads; must exist before the first request
+    @Value("${spring.servlet.multipart.location:}")
+    private String multipartLocation;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!multipartLocation.isEmpty()) {
+            Files.createDirectories(Paths.get(multipartLocation));
+        }
+    }
+
+    /**
+     * Multipart upload. The container has already written the part to a temp
+     * file under spring.servlet.multipart.location; Part.write renames it into
+     * the upload directory (same filesystem), so the bytes are not copied
+     * again, and one read pass computes the SHA-256. The file then goes into
+     * AttachmentBlobStore, which keeps a single copy per distinct content.
+     */
     @Transactional
     public Attachment uploadFile(MultipartFile file, String pageId, String userId) {
         if (file.isEmpty()) {
             throw new BadRequestException("File is empty");
         }
 
-        if (file.getSize() > 10 * 1024 * 1024) {
+        if (file.getSize() > MAX_FILE_SIZE) {
             throw new BadRequestException("File size exceeds 10MB limit");
         }
 
@@ -51,35 +89,144 @@ public class AttachmentService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
+        Path staged = null;
         try {
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+            staged = attachmentBlobStore.newStagingFile();
+            // transferTo(File) goes through Part.write (a rename); transferTo(Path) would copy the stream
+            file.transferTo(staged.toAbsolutePath().toFile());
+            String contentHash = sha256(staged);
+            return saveStaged(staged, contentHash, file.getSize(), file.getOriginalFilename(),
+                    file.getContentType(), page, user);
+        } catch (IOException e) {
+            deleteQuietly(staged);
+            throw new RuntimeException("Failed to save file: " + e.getMessage());
+        }
+    }
 
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFilename != null && originalFilename.contains(".")) {
-                fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    /**
+     * Upload from the raw request body. Nothing is buffered by the container:
+     * the stream is written to the upload directory once, hashing each chunk
+     * on the way.
+     */
+    @Transactional
+    public Attachment uploadStream(InputStream body, long contentLength, String fileName, String contentType,
+            String pageId, String userId) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new BadRequestException("fileName is required");
+        }
+
+        if (contentLength > MAX_FILE_SIZE) {
+            throw new BadRequestException("File size exceeds 10MB limit");
+        }
+
+        Page page = pageRepository.findById(pageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Page not found"));
+
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        Path staged = null;
+        try {
+            staged = attachmentBlobStore.newStagingFile();
+            MessageDigest digest = newDigest();
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (FileChannel out = FileChannel.open(staged, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    size += read;
+                    // Content-Length may be missing or wrong, so the limit is enforced on the bytes actually read
+                    if (size > MAX_FILE_SIZE) {
+                        throw new BadRequestException("File size exceeds 10MB limit");
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
             }
-            
-            String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-            Path filePath = uploadPath.resolve(uniqueFilename);
-
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            Attachment attachment = new Attachment(
-                    originalFilename,
-                    file.getContentType(),
-                    file.getSize(),
-                    filePath.toString(),
-                    page,
-                    user
-            );
-
-            return attachmentRepository.save(attachment);
+            if (size == 0) {
+                throw new BadRequestException("File is empty");
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            return saveStaged(staged, contentHash, size, fileName, contentType, page, user);
         } catch (IOException e) {
+            deleteQuietly(staged);
             throw new RuntimeException("Failed to save file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            deleteQuietly(staged);
+            throw e;
+        }
+    }
+
+    // Moves a fully written staging file into the blob store and records the attachment
+    @Transactional
+    public Attachment saveStaged(Path staged, String contentHash, long size, String fileName, String contentType,
+            Page page, User user) throws IOException {
+        String filePath = attachmentBlobStore.store(staged, contentHash, size);
+
+        Attachment attachment = new Attachment(
+                fileName,
+                contentType != null ? contentType : "application/octet-stream",
+                size,
+                filePath,
+                page,
+                user
+        );
+        attachment.setContentHash(contentHash);
+
+        Attachment saved = attachmentRepository.save(attachment);
+        if (ImageVariantService.isImage(saved.getFileType())) {
+            imageVariantService.generateAfterCommit(Paths.get(filePath));
+        }
+        return saved;
+    }
+
+    // Last step of a resumable upload: the session row goes in the transaction that records the attachment
+    @Transactional
+    public Attachment saveUpload(UploadSession session, String contentHash) throws IOException {
+        Page page = pageRepository.findById(session.getPageId())
+                .orElseThrow(() -> new ResourceNotFoundException("Page not found"));
+
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        uploadSessionRepository.deleteById(session.getId());
+        return saveStaged(Paths.get(session.getStagingPath()), contentHash, session.getTotalSize(),
+                session.getFileName(), session.getContentType(), page, user);
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Failed to delete physical file: " + e.getMessage());
         }
     }
 
@@ -102,15 +249,14 @@ public class AttachmentService {
     @Transactional
     public void deleteAttachment(String id) {
         Attachment attachment = getAttachmentById(id);
+        attachmentRepository.delete(attachment);
 
-        try {
-            Path filePath = Paths.get(attachment.getFilePath());
-            Files.deleteIfExists(filePath);
-        } catch (IOException e) {
-            // Log but continue if file deletion fails
-            System.err.println("Failed to delete physical file: " + e.getMessage());
+        // Shared files are only deleted with their last reference
+        if (attachmentBlobStore.holds(attachment.getFilePath(), attachment.getContentHash())) {
+            attachmentBlobStore.release(attachment.getContentHash());
+        } else {
+            deleteQuietly(Paths.get(attachment.getFilePath()));
+            imageVariantService.deleteVariants(Paths.get(attachment.getFilePath()));
         }
-
-        attachmentRepository.delete(attachment);
     }
 }
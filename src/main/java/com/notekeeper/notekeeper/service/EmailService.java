@@ -1,109 +1,74 @@
 package com.notekeeper.notekeeper.service;
 
+import com.notekeeper.notekeeper.model.OutboxMessage;
+import com.notekeeper.notekeeper.repository.OutboxMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Emails are written to the outbox and sent by OutboxDispatcher, retried until sent
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private OutboxMessageRepository outboxMessageRepository;
 
-    @org.springframework.scheduling.annotation.Async
-    public void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            mailSender.send(message);
-        } catch (Exception e) {
-            System.err.println("Failed to send email to " + to + ": " + e.getMessage());
-        }
+    // Joins the caller's transaction; OutboxDispatcher sends it once that commits
+    public void queueShareNotification(String toEmail, String shareByName, String contentName, String type) {
+        queueShareNotifications(List.of(toEmail), shareByName, contentName, type);
     }
 
-    public void sendShareNotification(String toEmail, String shareByName, String contentName, String type) {
+    // Same email to each recipient, inserted as one JDBC batch
+    public void queueShareNotifications(Collection<String> toEmails, String shareByName, String contentName, String type) {
         String subject = "Notekeeper: New " + type + " shared with you";
         String body = String.format(
             "Hello,\n\n%s has shared a %s with you: \"%s\".\n\nLogin to Notekeeper to view it.\n\nBest regards,\nThe Notekeeper Team",
             shareByName, type.toLowerCase(), contentName
         );
-        sendEmail(toEmail, subject, body);
+        queueAll(toEmails, subject, body);
     }
 
-    @org.springframework.scheduling.annotation.Async
-    public void sendPasswordResetEmail(String toEmail, String resetToken) {
-        // ... (existing implementation)
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Password Reset Request - NoteKeeper");
-            
-            String resetUrl = "http://localhost:3000/reset-password/" + resetToken;
-            String emailBody = "Hello,\n\n" +
-                    "You requested to reset your password for NoteKeeper.\n\n" +
-                    "Click the link below to reset your password:\n" +
-                    resetUrl + "\n\n" +
-                    "This link will expire in 1 hour.\n\n" +
-                    "If you didn't request this, please ignore this email.\n\n" +
-                    "Best regards,\n" +
-                    "NoteKeeper Team";
-            
-            message.setText(emailBody);
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send email: " + e.getMessage());
-        }
+    public void queueWorkspaceInvitations(Collection<String> toEmails, String inviterName, String workspaceName) {
+        String subject = "Notekeeper: You're invited to join \"" + workspaceName + "\"";
+        String body = String.format(
+            "Hello,\n\n%s has invited you to join the workspace \"%s\".\n\nLogin to Notekeeper to accept or decline the invitation.\n\nBest regards,\nThe Notekeeper Team",
+            inviterName, workspaceName
+        );
+        queueAll(toEmails, subject, body);
     }
 
-    public void send2FACode(String toEmail, String code) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Your 2FA Code - NoteKeeper");
-            
-            String emailBody = "Hello,\n\n" +
-                    "Your two-factor authentication code is:\n\n" +
-                    code + "\n\n" +
-                    "This code will expire in 5 minutes.\n\n" +
-                    "Best regards,\n" +
-                    "NoteKeeper Team";
-            
-            message.setText(emailBody);
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send 2FA email: " + e.getMessage());
+    private void queueAll(Collection<String> toEmails, String subject, String body) {
+        List<OutboxMessage> messages = new ArrayList<>(toEmails.size());
+        for (String toEmail : toEmails) {
+            messages.add(new OutboxMessage(toEmail, subject, body));
         }
+        outboxMessageRepository.saveAll(messages);
     }
 
-    public void sendWelcomeEmail(String toEmail, String firstName) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Welcome to NoteKeeper!");
-            
-            String emailBody = "Hello " + firstName + ",\n\n" +
-                    "Welcome to NoteKeeper!\n\n" +
-                    "Your account has been successfully created.\n\n" +
-                    "Start organizing your notes today!\n\n" +
-                    "Best regards,\n" +
-                    "NoteKeeper Team";
-            
-            message.setText(emailBody);
-            mailSender.send(message);
-        } catch (Exception e) {
-            // Don't fail registration if welcome email fails
-            System.err.println("Failed to send welcome email: " + e.getMessage());
-        }
+    // Security mail is never dropped: like shares, it goes through the outbox and is retried until sent
+    public void queuePasswordResetEmail(String toEmail, String resetToken) {
+        String resetUrl = "http://localhost:3000/reset-password/" + resetToken;
+        String emailBody = "Hello,\n\n" +
+                "You requested to reset your password for NoteKeeper.\n\n" +
+                "Click the link below to reset your password:\n" +
+                resetUrl + "\n\n" +
+                "This link will expire in 1 hour.\n\n" +
+                "If you didn't request this, please ignore this email.\n\n" +
+                "Best regards,\n" +
+                "NoteKeeper Team";
+        outboxMessageRepository.save(new OutboxMessage(toEmail, "Password Reset Request - NoteKeeper", emailBody));
+    }
+
+    public void queue2FACode(String toEmail, String code) {
+        String emailBody = "Hello,\n\n" +
+                "Your two-factor authentication code is:\n\n" +
+                code + "\n\n" +
+                "This code will expire in 5 minutes.\n\n" +
+                "Best regards,\n" +
+                "NoteKeeper Team";
+        outboxMessageRepository.save(new OutboxMessage(toEmail, "Your 2FA Code - NoteKeeper", emailBody));
     }
 }
@@ -0,0 +1,319 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.config.AsyncConfig;
+import com.notekeeper.notekeeper.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Resized copies of uploaded images, for grids and previews that do not
+ * need the full photo. Each original gets three variants, scaled to fit a
+ * square box and never enlarged:
+ *
+ *   thumb: 200px   card: 600px   full: 1600px
+ *
+ * A variant is stored next to its original as <file>.<size>.jpg, or .png
+ * when the image has transparency. The JDK's ImageIO has no WebP encoder,
+ * so opaque images become progressive JPEGs.
+ *
+ * Variants are rendered on imageExecutor after an image upload commits.
+ * Images from before that are rendered the first time a variant is
+ * requested; the request waits up to image.variants.on-demand-timeout and
+ * otherwise gets the original. Concurrent requests for one image share a
+ * single render.
+ */
+@Service
+public class ImageVariantService {
+
+    public enum Variant {
+        THUMB(200), CARD(600), FULL(1600);
+
+        private final int box;
+
+        Variant(int box) {
+            this.box = box;
+        }
+
+        public String key() {
+            return name().toLowerCase();
+        }
+
+        public static Variant parse(String size) {
+            for (Variant variant : values()) {
+                if (variant.key().equalsIgnoreCase(size)) {
+                    return variant;
+                }
+            }
+            throw new BadRequestException("size must be one of thumb, card, full");
+        }
+    }
+
+    @Autowired
+    @Qualifier(AsyncConfig.IMAGE_EXECUTOR)
+    private TaskExecutor imageExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.upload.dir:uploads/attachments/}")
+    private String uploadDir;
+
+    // Larger images are not decoded at all; the original is served as is
+    @Value("${image.variants.max-pixels:50000000}")
+    private long maxPixels;
+
+    @Value("${image.variants.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Value("${image.variants.on-demand-timeout:10s}")
+    private Duration onDemandTimeout;
+
+    private final Map<Path, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter rejected;
+    private Timer renderTimer;
+
+    @PostConstruct
+    void init() {
+        rejected = Counter.builder("image.variants.rejected")
+                .description("Variant renders skipped because the image executor was saturated")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("image.variants.render")
+                .description("Time to decode an image and write all its variants")
+                .register(meterRegistry);
+    }
+
+    public static boolean isImage(String contentType) {
+        return contentType != null && contentType.startsWith("image/") && !contentType.startsWith("image/svg");
+    }
+
+    // Queues the variants of a newly stored image once the upload commits
+    public void generateAfterCommit(Path original) {
+        Runnable submit = () -> {
+            try {
+                generate(original);
+            } catch (TaskRejectedException e) {
+                rejected.increment();
+                System.err.println("⚠️ Image executor saturated, variants of " + original
+                        + " will be rendered on first request");
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit.run();
+            }
+        });
+    }
+
+    /**
+     * The stored variant of original for size, rendering it first if needed.
+     * Null when the original should be served instead: it is outside the
+     * upload directory, cannot be decoded, or the render did not finish in
+     * time (it is then still cached for later requests).
+     */
+    public Path variantFor(Path original, String size) {
+        Variant variant = Variant.parse(size);
+        if (!isInUploadDir(original) || !Files.isRegularFile(original)) {
+            return null;
+        }
+        Path existing = findVariant(original, variant);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            generate(original).get(onDemandTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            return null;
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("⚠️ Failed to render variants of " + original + ": " + e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return findVariant(original, variant);
+    }
+
+    private CompletableFuture<Void> generate(Path original) {
+        Path key = original.toAbsolutePath().normalize();
+        CompletableFuture<Void> task = inFlight.computeIfAbsent(key,
+                k -> CompletableFuture.runAsync(() -> renderTimer.record(() -> render(k)), imageExecutor));
+        task.whenComplete((result, error) -> inFlight.remove(key, task));
+        return task;
+    }
+
+    private void render(Path original) {
+        boolean missing = false;
+        for (Variant variant : Variant.values()) {
+            missing |= findVariant(original, variant) == null;
+        }
+        if (!missing) {
+            // Same content uploaded again: the blob and its variants already exist
+            return;
+        }
+
+        try {
+            BufferedImage image = decode(original, Variant.FULL.box);
+            if (image == null) {
+                return;
+            }
+            boolean alpha = image.getColorModel().hasAlpha();
+            // Largest first, each scaled down from the previous one
+            for (Variant variant : new Variant[] { Variant.FULL, Variant.CARD, Variant.THUMB }) {
+                image = fit(image, variant.box, alpha);
+                write(image, variantPath(original, variant, alpha), alpha);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    // Reads the image subsampled to about twice the target size, so a huge photo is never fully decoded
+    private BufferedImage decode(Path original, int target) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (target * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves repeatedly with bilinear filtering, which looks much better than one large step
+    private static BufferedImage fit(BufferedImage source, int box, boolean alpha) {
+        double scale = Math.min(1.0, (double) box / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Written to a temp file and renamed, so readers never see a partial variant
+    private void write(BufferedImage image, Path target, boolean alpha) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            if (alpha) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path findVariant(Path original, Variant variant) {
+        for (boolean alpha : new boolean[] { false, true }) {
+            Path path = variantPath(original, variant, alpha);
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private static Path variantPath(Path original, Variant variant, boolean alpha) {
+        return original.resolveSibling(original.getFileName() + "." + variant.key() + (alpha ? ".png" : ".jpg"));
+    }
+
+    // Called when the original is deleted
+    public void deleteVariants(Path original) {
+        for (Variant variant : Variant.values()) {
+            for (boolean alpha : new boolean[] { false, true }) {
+                AttachmentService.deleteQuietly(variantPath(original, variant, alpha));
+            }
+        }
+    }
+
+    private boolean isInUploadDir(Path file) {
+        return file.toAbsolutePath().normalize().startsWith(Paths.get(uploadDir).toAbsolutePath().normalize());
+    }
+}
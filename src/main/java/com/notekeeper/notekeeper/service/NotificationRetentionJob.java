@@ -0,0 +1,57 @@
+package com.notekeeper.notekeeper.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps the notifications table small. On notification.retention.cron it
+ * compacts resolved invitations older than notification.retention.invitation-age
+ * into notification_archive, then deletes other read notifications older than
+ * notification.retention.read-age. Both work in batches of
+ * notification.retention.batch-size rows, each in its own short transaction.
+ * Unread and pending notifications are never touched.
+ */
+@Service
+public class NotificationRetentionJob {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${notification.retention.read-age:90d}")
+    private Duration readAge;
+
+    @Value("${notification.retention.invitation-age:30d}")
+    private Duration invitationAge;
+
+    @Value("${notification.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${notification.retention.cron:0 15 4 * * *}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+
+        int archived = 0;
+        int batch;
+        do {
+            batch = notificationService.archiveResolvedInvitations(now.minus(invitationAge), batchSize);
+            archived += batch;
+        } while (batch == batchSize);
+
+        int deleted = 0;
+        do {
+            batch = notificationService.deleteReadBatch(now.minus(readAge), batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+
+        notificationService.deleteOrphanedArchives();
+        if (archived > 0 || deleted > 0) {
+            System.out.println("✅ Notification retention: archived " + archived + " invitations, deleted "
+                    + deleted + " read notifications");
+        }
+    }
+}
@@ -1,27 +1,63 @@
 package com.notekeeper.notekeeper.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
+import com.notekeeper.notekeeper.dto.NotificationDTO;
+import com.notekeeper.notekeeper.mapper.DTOMapper;
 import com.notekeeper.notekeeper.model.Notification;
+import com.notekeeper.notekeeper.model.NotificationArchive;
 import com.notekeeper.notekeeper.model.NotificationType;
 import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.repository.NotificationArchiveRepository;
 import com.notekeeper.notekeeper.repository.NotificationRepository;
 import com.notekeeper.notekeeper.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import com.notekeeper.notekeeper.exception.BadRequestException;
 import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class NotificationService {
 
+    private static final int MAX_BULK_IDS = 1000;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private UnreadCounter unreadCounter;
+
+    @Autowired
+    private NotificationArchiveRepository notificationArchiveRepository;
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     // CREATE
     @Transactional
     public String createNotification(String userId, String title, String message, NotificationType type) {
@@ -30,9 +66,32 @@ public class NotificationService {
 
         Notification notification = new Notification(user, title, message, type);
         Notification saved = notificationRepository.save(notification);
+        notificationStreamService.notificationCreated(saved);
+        unreadCounter.adjust(userId, 1);
         return saved.getId();
     }
 
+    // Saves the notifications as JDBC batches and bumps each recipient's unread count
+    @Transactional
+    public List<Notification> createNotifications(List<Notification> notifications) {
+        List<Notification> saved = notificationRepository.saveAll(notifications);
+        Map<String, Long> perUser = new LinkedHashMap<>();
+        for (Notification notification : saved) {
+            perUser.merge(notification.getUser().getId(), 1L, Long::sum);
+            notificationStreamService.notificationCreated(notification);
+        }
+        List<String> once = new ArrayList<>();
+        perUser.forEach((userId, count) -> {
+            if (count == 1) {
+                once.add(userId);
+            } else {
+                unreadCounter.adjust(userId, count);
+            }
+        });
+        unreadCounter.incrementAll(once);
+        return saved;
+    }
+
     // READ
     public Notification getNotificationById(String id) {
         return notificationRepository.findById(id)
@@ -43,12 +102,34 @@ public class NotificationService {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    // Keyset pagination: constant cost at any depth, total only counted on request
+    public CursorPageDTO<Notification> getNotificationsByCursor(String userId, String cursor, int size,
+            boolean includeTotal) {
+        KeysetCursor.validateSize(size);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Notification> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findNotificationsFirst(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = notificationRepository.findNotificationsAfter(userId, after.getTimestamp(), after.getId(), limit);
+        }
+        Long total = includeTotal ? notificationRepository.countByUserId(userId) : null;
+        return CursorPageDTO.of(rows, size, n -> KeysetCursor.encode(n.getCreatedAt(), n.getId()), total);
+    }
+
+    public CursorPageDTO<NotificationDTO> getNotificationsByCursorDTO(String userId, String cursor, int size,
+            boolean includeTotal) {
+        return getNotificationsByCursor(userId, cursor, size, includeTotal).map(dtoMapper::toNotificationDTO);
+    }
+
     public List<Notification> getUnreadNotifications(String userId) {
         return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
     }
 
+    // Maintained counter, see UnreadCounter
     public long countUnreadNotifications(String userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounter.get(userId);
     }
 
     // UPDATE
@@ -57,8 +138,11 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+        String userId = notification.getUser().getId();
+        if (notificationRepository.markRead(id) > 0) {
+            notificationStreamService.notificationUpdated(userId, id, true, notification.getStatus());
+            unreadCounter.adjust(userId, -1);
+        }
     }
 
     @Transactional
@@ -66,16 +150,31 @@ public class NotificationService {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
-        notification.setIsRead(false);
-        notificationRepository.save(notification);
+        String userId = notification.getUser().getId();
+        if (notificationRepository.markUnread(id) > 0) {
+            notificationStreamService.notificationUpdated(userId, id, false, notification.getStatus());
+            unreadCounter.adjust(userId, 1);
+        }
     }
 
     @Transactional
-    public void markAllAsRead(String userId) {
-        List<Notification> notifications = notificationRepository
-                .findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        notifications.forEach(n -> n.setIsRead(true));
-        notificationRepository.saveAll(notifications);
+    public int markAllAsRead(String userId) {
+        int updated = notificationRepository.markAllRead(userId);
+        if (updated > 0) {
+            notificationStreamService.allRead(userId, updated, null);
+            unreadCounter.adjust(userId, -updated);
+        }
+        return updated;
+    }
+
+    @Transactional
+    public int markAsReadBefore(String userId, LocalDateTime before) {
+        int updated = notificationRepository.markReadBefore(userId, before);
+        if (updated > 0) {
+            notificationStreamService.allRead(userId, updated, before);
+            unreadCounter.adjust(userId, -updated);
+        }
+        return updated;
     }
 
     // DELETE
@@ -85,5 +184,117 @@ public class NotificationService {
                 .orElseThrow(() -> new ResourceNotFoundException("Notification not found"));
 
         notificationRepository.delete(notification);
+        String userId = notification.getUser().getId();
+        notificationStreamService.notificationsDeleted(userId, List.of(id));
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounter.adjust(userId, -1);
+        }
+    }
+
+    // Ids that are not the user's are ignored
+    @Transactional
+    public int deleteNotifications(String userId, List<String> ids) {
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new BadRequestException("At most " + MAX_BULK_IDS + " notifications can be deleted at once");
+        }
+        long unread = notificationRepository.countByUserIdAndIdInAndIsReadFalse(userId, ids);
+        int deleted = notificationRepository.deleteByUserIdAndIdIn(userId, ids);
+        if (deleted > 0) {
+            notificationStreamService.notificationsDeleted(userId, ids);
+            unreadCounter.adjust(userId, -unread);
+        }
+        return deleted;
+    }
+
+    // Only read notifications, so the unread count is unaffected
+    @Transactional
+    public int deleteReadOlderThan(String userId, LocalDateTime before) {
+        int deleted = notificationRepository.deleteReadOlderThan(userId, before);
+        if (deleted > 0) {
+            notificationStreamService.readPruned(userId, deleted, before);
+        }
+        return deleted;
+    }
+
+    // RETENTION (one bounded batch per call, see NotificationRetentionJob)
+
+    // Read notifications other than invitations; unread counts are unaffected
+    @Transactional
+    public int deleteReadBatch(LocalDateTime before, int limit) {
+        return notificationRepository.deleteReadBatch(before, limit);
+    }
+
+    // Moves resolved invitations into notification_archive, one gzipped row per user
+    @Transactional
+    public int archiveResolvedInvitations(LocalDateTime before, int limit) {
+        List<Notification> batch = notificationRepository.findResolvedInvitationsBefore(before,
+                PageRequest.of(0, limit));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Ordered by user, so each user's rows are contiguous
+        Map<String, List<Notification>> byUser = new LinkedHashMap<>();
+        for (Notification n : batch) {
+            byUser.computeIfAbsent(n.getUser().getId(), id -> new ArrayList<>()).add(n);
+        }
+        for (Map.Entry<String, List<Notification>> entry : byUser.entrySet()) {
+            List<Notification> rows = entry.getValue();
+            notificationArchiveRepository.save(new NotificationArchive(entry.getKey(), rows.size(),
+                    rows.get(0).getCreatedAt(), rows.get(rows.size() - 1).getCreatedAt(), compress(rows)));
+        }
+        notificationRepository.deleteAllInBatch(batch);
+        return batch.size();
+    }
+
+    private byte[] compress(List<Notification> rows) {
+        List<Map<String, Object>> entries = new ArrayList<>(rows.size());
+        for (Notification n : rows) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", n.getId());
+            entry.put("title", n.getTitle());
+            entry.put("message", n.getMessage());
+            entry.put("type", n.getType());
+            entry.put("status", n.getStatus());
+            entry.put("metadata", n.getMetadata());
+            entry.put("actionUrl", n.getActionUrl());
+            entry.put("createdAt", n.getCreatedAt().toString());
+            entries.add(entry);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Archives are keyed by user id without a foreign key, so deleted users leave them behind
+    @Transactional
+    public int deleteOrphanedArchives() {
+        return notificationArchiveRepository.deleteOrphans();
+    }
+
+    // Archived invitations of a user, newest first, as compress() wrote them
+    public List<Map<String, Object>> getArchivedNotifications(String userId) {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (NotificationArchive archive : notificationArchiveRepository.findByUserIdOrderByLastCreatedAtDesc(userId)) {
+            List<Map<String, Object>> batch = readArchive(archive);
+            // Each batch is stored oldest first
+            Collections.reverse(batch);
+            entries.addAll(batch);
+        }
+        return entries;
+    }
+
+    // Inverse of compress()
+    private List<Map<String, Object>> readArchive(NotificationArchive archive) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(archive.getPayload()))) {
+            return objectMapper.readValue(gzip, new TypeReference<List<Map<String, Object>>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,319 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.config.AsyncConfig;
+import com.notekeeper.notekeeper.dto.NotificationDTO;
+import com.notekeeper.notekeeper.mapper.DTOMapper;
+import com.notekeeper.notekeeper.model.Notification;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes notification changes to open /api/notifications/stream connections.
+ *
+ * Events (SSE event name: data):
+ *   notification: the new NotificationDTO
+ *   updated:      {id, isRead, status}, e.g. read/unread or invitation ACCEPTED/DECLINED
+ *   deleted:      {ids}
+ *   read-all:     {count, before}, before is null when every notification was marked read
+ *   pruned:       {count, before}, read notifications created before this were deleted
+ *   unread:       {delta}, to apply to the count from /my/count (sent by UnreadCounter)
+ *   resync:       {}, sent when a resumed stream missed events that are no longer buffered
+ *
+ * Idle connections hold no thread, only an SseEmitter and a small queue.
+ * Writes go through a per-connection queue drained on the notification
+ * stream executor, so a slow client never blocks the publisher. A client
+ * whose queue overflows is disconnected and resumes with Last-Event-ID.
+ * Event ids and the replay buffer are per user and in memory on this node.
+ */
+@Service
+public class NotificationStreamService {
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
+    @Autowired
+    @Qualifier(AsyncConfig.NOTIFICATION_STREAM_EXECUTOR)
+    private TaskExecutor streamExecutor;
+
+    @Value("${notification.stream.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${notification.stream.replay-size:100}")
+    private int replaySize;
+
+    // Must exceed replay-size so a full replay fits
+    @Value("${notification.stream.queue-size:256}")
+    private int queueSize;
+
+    // How long a user's replay buffer outlives their last connection
+    @Value("${notification.stream.idle-retention:5m}")
+    private Duration idleRetention;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, UserStream> streams = new ConcurrentHashMap<>();
+
+    private record StreamEvent(long id, String name, Object data) {
+    }
+
+    private static class UserStream {
+        private long lastId;
+        private final Deque<StreamEvent> replay = new ArrayDeque<>();
+        private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+        private volatile long idleSince = System.currentTimeMillis();
+    }
+
+    private class Connection {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > queueSize) {
+                // Too slow to keep up: drop the connection, the client resumes from its last event id
+                close();
+                emitter.complete();
+                return;
+            }
+            pending.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                streamExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                close();
+                emitter.complete();
+            }
+        }
+
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = pending.poll()) != null) {
+                queued.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (Exception e) {
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+            draining.set(false);
+            if (!closed && !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        void close() {
+            closed = true;
+            pending.clear();
+            UserStream stream = streams.get(userId);
+            if (stream != null && stream.connections.remove(this) && stream.connections.isEmpty()) {
+                stream.idleSince = System.currentTimeMillis();
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("notification.stream.connections", this, NotificationStreamService::connectionCount)
+                .description("Open notification streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user. With lastEventId (the Last-Event-ID header
+     * of a reconnecting EventSource) buffered events after it are replayed
+     * first, or a resync event is sent if some were already dropped.
+     */
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+
+        // Registered inside compute so heartbeat() cannot drop the stream in between
+        streams.compute(userId, (id, stream) -> {
+            if (stream == null) {
+                stream = new UserStream();
+            }
+            synchronized (stream) {
+                if (lastEventId != null && !lastEventId.isBlank()) {
+                    replay(stream, connection, lastEventId.trim());
+                }
+                stream.connections.add(connection);
+            }
+            return stream;
+        });
+        // Flushes the response headers so the client sees the stream as open
+        connection.enqueue(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    private void replay(UserStream stream, Connection connection, String lastEventId) {
+        long last;
+        try {
+            last = Long.parseLong(lastEventId);
+        } catch (NumberFormatException e) {
+            last = -1;
+        }
+        long oldest = stream.replay.isEmpty() ? stream.lastId + 1 : stream.replay.peekFirst().id();
+        if (last < oldest - 1 || last > stream.lastId) {
+            connection.enqueue(toSse(new StreamEvent(stream.lastId, "resync", Map.of())));
+            return;
+        }
+        for (StreamEvent event : stream.replay) {
+            if (event.id() > last) {
+                connection.enqueue(toSse(event));
+            }
+        }
+    }
+
+    // EVENTS (delivered after the surrounding transaction commits)
+
+    public void notificationCreated(Notification notification) {
+        NotificationDTO dto = dtoMapper.toNotificationDTO(notification);
+        publish(dto.getUserId(), "notification", dto);
+    }
+
+    public void notificationUpdated(String userId, String id, Boolean isRead, String status) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", id);
+        data.put("isRead", isRead);
+        data.put("status", status);
+        publish(userId, "updated", data);
+    }
+
+    public void notificationsDeleted(String userId, List<String> ids) {
+        publish(userId, "deleted", Map.of("ids", ids));
+    }
+
+    public void allRead(String userId, long count, LocalDateTime before) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("count", count);
+        data.put("before", before);
+        publish(userId, "read-all", data);
+    }
+
+    public void readPruned(String userId, long count, LocalDateTime before) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("count", count);
+        data.put("before", before);
+        publish(userId, "pruned", data);
+    }
+
+    public void unreadChanged(String userId, long delta) {
+        if (delta != 0) {
+            publish(userId, "unread", Map.of("delta", delta));
+        }
+    }
+
+    private void publish(String userId, String name, Object data) {
+        afterCommit(() -> {
+            UserStream stream = streams.get(userId);
+            if (stream == null) {
+                return;
+            }
+            List<Connection> targets;
+            StreamEvent event;
+            synchronized (stream) {
+                event = new StreamEvent(++stream.lastId, name, data);
+                stream.replay.addLast(event);
+                if (stream.replay.size() > replaySize) {
+                    stream.replay.removeFirst();
+                }
+                targets = new ArrayList<>(stream.connections);
+            }
+            for (Connection connection : targets) {
+                connection.enqueue(toSse(event));
+            }
+        });
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(StreamEvent event) {
+        return SseEmitter.event().id(String.valueOf(event.id())).name(event.name()).data(event.data());
+    }
+
+    // Keeps proxies from closing idle connections, and drops replay buffers nobody will resume
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-interval:20000}")
+    public void heartbeat() {
+        long expiredBefore = System.currentTimeMillis() - idleRetention.toMillis();
+        streams.forEach((userId, stream) -> {
+            if (stream.connections.isEmpty()) {
+                if (stream.idleSince < expiredBefore) {
+                    streams.computeIfPresent(userId, (id, s) -> s.connections.isEmpty() ? null : s);
+                }
+                return;
+            }
+            for (Connection connection : stream.connections) {
+                connection.enqueue(SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    public int connectionCount() {
+        int count = 0;
+        for (UserStream stream : streams.values()) {
+            count += stream.connections.size();
+        }
+        return count;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.model.OutboxMessage;
+import com.notekeeper.notekeeper.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends queued OutboxMessages. Each run claims up to outbox.dispatch.batch-size
+ * due rows with FOR UPDATE SKIP LOCKED, so several instances can dispatch
+ * side by side, and sends the whole batch over a single SMTP connection.
+ *
+ * A failed email is retried with exponential backoff, from
+ * outbox.retry.initial-backoff up to outbox.retry.max-backoff, and marked
+ * FAILED after outbox.max-attempts. An email whose recipient cannot be
+ * parsed is marked FAILED right away, without holding up the rest of its
+ * batch.
+ *
+ * Metrics: outbox.sent, outbox.retried and outbox.failed (counters),
+ * outbox.dispatch (batch timer), outbox.pending and outbox.lag (age in
+ * seconds of the oldest pending email).
+ */
+@Service
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${outbox.dispatch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.retry.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${outbox.retry.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    private Counter sent;
+    private Counter retried;
+    private Counter failed;
+    private Timer batchTimer;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        sent = Counter.builder("outbox.sent").description("Outbox emails sent").register(meterRegistry);
+        retried = Counter.builder("outbox.retried").description("Outbox emails rescheduled after a failed attempt")
+                .register(meterRegistry);
+        failed = Counter.builder("outbox.failed").description("Outbox emails given up on after outbox.max-attempts")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.dispatch").description("Time to send one claimed batch")
+                .register(meterRegistry);
+        meterRegistry.gauge("outbox.pending", pending);
+        meterRegistry.gauge("outbox.lag", lagSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch.interval:2000}",
+            initialDelayString = "${outbox.dispatch.initial-delay:0}")
+    @Transactional
+    public void dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = outboxMessageRepository.claimDue(now, batchSize);
+        if (!batch.isEmpty()) {
+            batchTimer.record(() -> send(batch, now));
+        }
+
+        pending.set(outboxMessageRepository.countByStatus(OutboxMessage.PENDING));
+        LocalDateTime oldest = outboxMessageRepository.findOldestPendingCreatedAt();
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, now).toSeconds()));
+    }
+
+    private void send(List<OutboxMessage> batch, LocalDateTime now) {
+        // Built one by one, so an address that does not parse fails only its own row
+        List<OutboxMessage> rows = new ArrayList<>(batch.size());
+        List<MimeMessage> mails = new ArrayList<>(batch.size());
+        for (OutboxMessage row : batch) {
+            SimpleMailMessage mail = new SimpleMailMessage();
+            mail.setFrom(fromEmail);
+            mail.setTo(row.getRecipient());
+            mail.setSubject(row.getSubject());
+            mail.setText(row.getBody());
+            try {
+                MimeMailMessage mime = new MimeMailMessage(mailSender.createMimeMessage());
+                mail.copyTo(mime);
+                mails.add(mime.getMimeMessage());
+                rows.add(row);
+            } catch (MailParseException e) {
+                // Retrying cannot fix it
+                row.setAttempts(row.getAttempts() + 1);
+                giveUp(row, e);
+            }
+        }
+
+        // JavaMailSender sends an array over one connection and reports failures per message
+        Map<Object, Exception> failures = Map.of();
+        Exception batchFailure = null;
+        if (!mails.isEmpty()) {
+            try {
+                mailSender.send(mails.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                failures = e.getFailedMessages();
+                if (failures.isEmpty()) {
+                    batchFailure = e;
+                }
+            } catch (MailException e) {
+                batchFailure = e;
+            }
+        }
+
+        List<OutboxMessage> delivered = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Exception error = batchFailure != null ? batchFailure : failures.get(mails.get(i));
+            if (error == null) {
+                delivered.add(rows.get(i));
+            } else {
+                reschedule(rows.get(i), error, now);
+            }
+        }
+        outboxMessageRepository.deleteAllInBatch(delivered);
+        sent.increment(delivered.size());
+
+        if (delivered.size() < batch.size()) {
+            System.err.println("⚠️ Outbox: sent " + delivered.size() + " of " + batch.size() + " emails");
+        }
+    }
+
+    private void reschedule(OutboxMessage row, Exception error, LocalDateTime now) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        if (attempts >= maxAttempts) {
+            giveUp(row, error);
+            return;
+        }
+        row.setLastError(error.getMessage());
+        long backoffMillis = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+        row.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMillis)));
+        retried.increment();
+    }
+
+    private void giveUp(OutboxMessage row, Exception error) {
+        row.setLastError(error.getMessage());
+        row.setStatus(OutboxMessage.FAILED);
+        failed.increment();
+        System.err.println("❌ Outbox: giving up on email to " + row.getRecipient() + " after " + row.getAttempts()
+                + " attempts: " + error.getMessage());
+    }
+}
@@ -0,0 +1,37 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.repository.TagRepository;
+import com.notekeeper.notekeeper.repository.WorkspaceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Recounts the denormalized Tag.pageCount and Workspace.pageCount columns.
+ * PageService keeps them current, but cascades that bypass it (deleting a
+ * workspace, user or tag) leave them off. Runs once at startup to backfill
+ * and then on page-count.reconcile.cron.
+ */
+@Service
+public class PageCountReconciler {
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private WorkspaceRepository workspaceRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${page-count.reconcile.cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        int tags = tagRepository.reconcilePageCounts();
+        int workspaces = workspaceRepository.reconcilePageCounts();
+        if (tags > 0 || workspaces > 0) {
+            System.out.println("⚠️ Corrected page counts for " + tags + " tags and " + workspaces + " workspaces");
+        }
+    }
+}
@@ -1,20 +1,37 @@
 package com.notekeeper.notekeeper.service;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
+import com.notekeeper.notekeeper.dto.PageSummaryDTO;
 import com.notekeeper.notekeeper.model.Page;
 import com.notekeeper.notekeeper.model.User;
 import com.notekeeper.notekeeper.model.Workspace;
 import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.repository.PageTagRepository;
 import com.notekeeper.notekeeper.repository.TagRepository;
 import com.notekeeper.notekeeper.repository.UserRepository;
 import com.notekeeper.notekeeper.repository.WorkspaceRepository;
+import com.notekeeper.notekeeper.search.PageSearchIndex;
+import com.notekeeper.notekeeper.search.SearchBackend;
+import com.notekeeper.notekeeper.search.SearchHits;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PageService {
@@ -31,6 +48,18 @@ public class PageService {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private PageTagRepository pageTagRepository;
+
+    @Autowired
+    private PageSearchIndex searchIndex;
+
+    @Autowired
+    private PermissionCache permissionCache;
+
+    @Value("${search.backend:index}")
+    private SearchBackend searchBackend;
+
     // CREATE
     @Transactional
     public String createPage(Page page) {
@@ -57,6 +86,8 @@ public class PageService {
             }
         }
         Page saved = pageRepository.save(page);
+        countPage(saved, 1);
+        reindexAfterCommit(saved);
         return saved.getId();
     }
 
@@ -70,6 +101,8 @@ public class PageService {
 
         Page quickNote = new Page(title, content, user, inbox);
         Page saved = pageRepository.save(quickNote);
+        workspaceRepository.adjustPageCount(inbox.getId(), 1);
+        reindexAfterCommit(saved);
         return saved.getId();
     }
 
@@ -103,12 +136,118 @@ public class PageService {
         return pageRepository.findInboxPages(userId);
     }
 
-    public List<Page> searchPages(String keyword) {
-        return pageRepository.searchPages(keyword);
+    public org.springframework.data.domain.Page<Page> searchPages(String keyword, int page, int size) {
+        return search(keyword, null, PageRequest.of(page, size));
+    }
+
+    public org.springframework.data.domain.Page<Page> searchUserPages(String userId, String keyword, int page, int size) {
+        return search(keyword, userId, PageRequest.of(page, size));
+    }
+
+    private org.springframework.data.domain.Page<Page> search(String keyword, String userId, Pageable pageable) {
+        if (searchBackend == SearchBackend.FULLTEXT) {
+            return userId == null
+                    ? pageRepository.fullTextSearchPages(keyword, pageable)
+                    : pageRepository.fullTextSearchUserPages(userId, keyword, pageable);
+        }
+        // The LIKE queries also cover searches while the in-memory index is still loading
+        if (searchBackend == SearchBackend.LIKE || !searchIndex.isReady()) {
+            return userId == null
+                    ? pageRepository.searchPages(keyword, pageable)
+                    : pageRepository.searchUserPages(userId, keyword, pageable);
+        }
+
+        SearchHits hits = searchIndex.search(keyword, userId, pageable.getPageNumber(), pageable.getPageSize());
+        Map<String, Page> pagesById = pageRepository.findAllById(hits.getPageIds()).stream()
+                .collect(Collectors.toMap(Page::getId, Function.identity()));
+
+        List<Page> ranked = new ArrayList<>(hits.getPageIds().size());
+        for (String pageId : hits.getPageIds()) {
+            Page match = pagesById.get(pageId);
+            if (match != null) {
+                ranked.add(match);
+            } else {
+                // Removed by a cascade (workspace or user delete) that bypassed PageService
+                searchIndex.remove(pageId);
+            }
+        }
+        return new PageImpl<>(ranked, pageable, hits.getTotalHits());
+    }
+
+    // SUMMARIES (no content column, tag ids fetched in one extra query)
+    public List<PageSummaryDTO> getPageSummariesByUser(String userId) {
+        return withTagIds(pageRepository.findSummariesByUserId(userId));
+    }
+
+    public List<PageSummaryDTO> getPageSummariesByWorkspace(String workspaceId) {
+        return withTagIds(pageRepository.findSummariesByWorkspaceId(workspaceId));
+    }
+
+    public List<PageSummaryDTO> getFavoritePageSummaries(String userId) {
+        return withTagIds(pageRepository.findFavoriteSummaries(userId));
+    }
+
+    public List<PageSummaryDTO> getInboxPageSummaries(String userId) {
+        return withTagIds(pageRepository.findInboxSummaries(userId));
+    }
+
+    public List<PageSummaryDTO> getRecentPageSummaries(String userId) {
+        return withTagIds(pageRepository.findRecentSummaries(userId, PageRequest.of(0, 10)));
+    }
+
+    public List<PageSummaryDTO> searchPageSummaries(String keyword, int page, int size) {
+        return searchSummaries(keyword, null, PageRequest.of(page, size));
+    }
+
+    public List<PageSummaryDTO> searchUserPageSummaries(String userId, String keyword, int page, int size) {
+        return searchSummaries(keyword, userId, PageRequest.of(page, size));
+    }
+
+    // Never loads Page entities: LIKE matches come back as summaries, ranked backends as ids
+    private List<PageSummaryDTO> searchSummaries(String keyword, String userId, Pageable pageable) {
+        if (searchBackend == SearchBackend.FULLTEXT) {
+            return rankedSummaries(userId == null
+                    ? pageRepository.fullTextSearchPageIds(keyword, pageable)
+                    : pageRepository.fullTextSearchUserPageIds(userId, keyword, pageable), false);
+        }
+        if (searchBackend == SearchBackend.LIKE || !searchIndex.isReady()) {
+            return withTagIds(userId == null
+                    ? pageRepository.searchPageSummaries(keyword, pageable)
+                    : pageRepository.searchUserPageSummaries(userId, keyword, pageable));
+        }
+        return rankedSummaries(searchIndex.search(keyword, userId, pageable.getPageNumber(), pageable.getPageSize())
+                .getPageIds(), true);
+    }
+
+    private List<PageSummaryDTO> rankedSummaries(List<String> pageIds, boolean fromIndex) {
+        if (pageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, PageSummaryDTO> summariesById = pageRepository.findSummariesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(PageSummaryDTO::getId, Function.identity()));
+        List<PageSummaryDTO> ranked = new ArrayList<>(pageIds.size());
+        for (String pageId : pageIds) {
+            PageSummaryDTO match = summariesById.get(pageId);
+            if (match != null) {
+                ranked.add(match);
+            } else if (fromIndex) {
+                searchIndex.remove(pageId);
+            }
+        }
+        return withTagIds(ranked);
     }
 
-    public List<Page> searchUserPages(String userId, String keyword) {
-        return pageRepository.searchUserPages(userId, keyword);
+    private List<PageSummaryDTO> withTagIds(List<PageSummaryDTO> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<String, PageSummaryDTO> summariesById = summaries.stream()
+                .collect(Collectors.toMap(PageSummaryDTO::getId, Function.identity()));
+        for (Object[] row : pageTagRepository.findTagIdsByPageIds(new ArrayList<>(summariesById.keySet()))) {
+            summariesById.get((String) row[0]).getTagIds().add((String) row[1]);
+        }
+        return summaries;
     }
 
     // UPDATE
@@ -128,9 +267,12 @@ public class PageService {
         }
 
         pageRepository.save(page);
+        reindexAfterCommit(page);
     }
 
     private void syncTags(Page page, List<com.notekeeper.notekeeper.model.PageTag> newPageTags) {
+        Set<String> tagIdsBefore = tagIdsOf(page);
+
         // Remove existing tags that are not in the new list
         page.getPageTags().removeIf(existingPt -> newPageTags.stream()
                 .noneMatch(newPt -> newPt.getTag().getId().equals(existingPt.getTag().getId())));
@@ -148,6 +290,18 @@ public class PageService {
                 page.getPageTags().add(pt);
             }
         }
+
+        Set<String> tagIdsAfter = tagIdsOf(page);
+        Set<String> removed = new HashSet<>(tagIdsBefore);
+        removed.removeAll(tagIdsAfter);
+        Set<String> added = new HashSet<>(tagIdsAfter);
+        added.removeAll(tagIdsBefore);
+        if (!removed.isEmpty()) {
+            tagRepository.adjustPageCount(removed, -1);
+        }
+        if (!added.isEmpty()) {
+            tagRepository.adjustPageCount(added, 1);
+        }
     }
 
     @Transactional
@@ -166,6 +320,11 @@ public class PageService {
 
         page.setIsArchived(!page.getIsArchived());
         pageRepository.save(page);
+
+        if (searchBackend == SearchBackend.INDEX) {
+            boolean archived = page.getIsArchived();
+            runAfterCommit(() -> searchIndex.setArchived(pageId, archived));
+        }
     }
 
     @Transactional
@@ -176,8 +335,17 @@ public class PageService {
         Workspace workspace = workspaceRepository.findById(workspaceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Workspace not found"));
 
+        String previousWorkspaceId = page.getWorkspace() != null ? page.getWorkspace().getId() : null;
         page.setWorkspace(workspace);
         pageRepository.save(page);
+        permissionCache.evictPage(pageId);
+
+        if (!workspaceId.equals(previousWorkspaceId)) {
+            if (previousWorkspaceId != null) {
+                workspaceRepository.adjustPageCount(previousWorkspaceId, -1);
+            }
+            workspaceRepository.adjustPageCount(workspaceId, 1);
+        }
     }
 
     // DELETE
@@ -186,7 +354,56 @@ public class PageService {
         Page page = pageRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Page not found"));
 
+        countPage(page, -1);
         pageRepository.delete(page);
+        permissionCache.evictPage(id);
+        if (searchBackend == SearchBackend.INDEX) {
+            runAfterCommit(() -> searchIndex.remove(id));
+        }
+    }
+
+    // PAGE COUNTERS (denormalized Tag/Workspace.pageCount, see PageCountReconciler)
+    private void countPage(Page page, int delta) {
+        if (page.getWorkspace() != null) {
+            workspaceRepository.adjustPageCount(page.getWorkspace().getId(), delta);
+        }
+        Set<String> tagIds = tagIdsOf(page);
+        if (!tagIds.isEmpty()) {
+            tagRepository.adjustPageCount(tagIds, delta);
+        }
+    }
+
+    private Set<String> tagIdsOf(Page page) {
+        return page.getPageTags().stream()
+                .map(pt -> pt.getTag().getId())
+                .collect(Collectors.toSet());
+    }
+
+    // SEARCH INDEX MAINTENANCE
+    private void reindexAfterCommit(Page page) {
+        if (searchBackend != SearchBackend.INDEX) {
+            return;
+        }
+        String pageId = page.getId();
+        String userId = page.getUser().getId();
+        boolean archived = Boolean.TRUE.equals(page.getIsArchived());
+        String title = page.getTitle();
+        String content = page.getContent();
+        runAfterCommit(() -> searchIndex.index(pageId, userId, archived, title, content));
+    }
+
+    // Index changes are only applied once the page is actually committed
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     // SORTING
@@ -213,6 +430,21 @@ public class PageService {
         return pageRepository.findByUserIdAndIsArchivedFalse(userId, PageRequest.of(page, size, sort));
     }
 
+    // Keyset pagination: constant cost at any depth, total only counted on request
+    public CursorPageDTO<Page> getUserPagesByCursor(String userId, String cursor, int size, boolean includeTotal) {
+        KeysetCursor.validateSize(size);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Page> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = pageRepository.findUserPagesFirst(userId, limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = pageRepository.findUserPagesAfter(userId, after.getTimestamp(), after.getId(), limit);
+        }
+        Long total = includeTotal ? pageRepository.countByUserIdAndIsArchivedFalse(userId) : null;
+        return CursorPageDTO.of(rows, size, p -> KeysetCursor.encode(p.getUpdatedAt(), p.getId()), total);
+    }
+
     // STATISTICS
     public long countUserPages(String userId) {
         return pageRepository.countByUserId(userId);
@@ -1,7 +1,10 @@
 package com.notekeeper.notekeeper.service;
 
+import com.notekeeper.notekeeper.dto.BulkRecipientsRequest;
+import com.notekeeper.notekeeper.dto.BulkResultDTO;
 import com.notekeeper.notekeeper.exception.BadRequestException;
 import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
+import com.notekeeper.notekeeper.model.Notification;
 import com.notekeeper.notekeeper.model.Page;
 import com.notekeeper.notekeeper.model.PageShare;
 import com.notekeeper.notekeeper.model.User;
@@ -12,7 +15,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class PageShareService {
@@ -32,6 +40,9 @@ public class PageShareService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private PermissionCache permissionCache;
+
     @Transactional
     public PageShare sharePage(String pageId, String sharedById, String email, String permission) {
         if (pageId == null || sharedById == null || email == null) {
@@ -58,6 +69,7 @@ public class PageShareService {
 
         PageShare share = new PageShare(page, sharedBy, sharedWith, permission);
         PageShare savedShare = pageShareRepository.save(share);
+        permissionCache.evictPageUser(pageId, sharedWith.getId());
 
         // CREATE NOTIFICATION
         notificationService.createNotification(
@@ -67,8 +79,8 @@ public class PageShareService {
                 com.notekeeper.notekeeper.model.NotificationType.SHARE
         );
 
-        // SEND EMAIL
-        emailService.sendShareNotification(
+        // QUEUE EMAIL (sent after commit by OutboxDispatcher)
+        emailService.queueShareNotification(
                 sharedWith.getEmail(),
                 sharedBy.getFullName(),
                 page.getTitle(),
@@ -78,6 +90,79 @@ public class PageShareService {
         return savedShare;
     }
 
+    // Bulk version of sharePage: one IN query per lookup, batched inserts, per-recipient results
+    @Transactional
+    public BulkResultDTO shareAll(String pageId, String sharedById, List<BulkRecipientsRequest.Recipient> recipients) {
+        if (pageId == null || sharedById == null) {
+            throw new BadRequestException("pageId and sharedById are required");
+        }
+        BulkRecipientsRequest.validateSize(recipients);
+
+        Page page = pageRepository.findById(pageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Page not found"));
+
+        User sharedBy = userRepository.findById(sharedById)
+                .orElseThrow(() -> new ResourceNotFoundException("Sharing user not found"));
+
+        Set<String> emails = new HashSet<>();
+        for (BulkRecipientsRequest.Recipient recipient : recipients) {
+            if (recipient.getEmail() != null) {
+                emails.add(recipient.getEmail().trim());
+            }
+        }
+        Map<String, User> usersByEmail = new HashMap<>();
+        for (User user : userRepository.findByEmailIn(emails)) {
+            usersByEmail.put(user.getEmail(), user);
+        }
+        Set<String> userIds = new HashSet<>();
+        usersByEmail.values().forEach(user -> userIds.add(user.getId()));
+        Set<String> alreadyShared = new HashSet<>(pageShareRepository.findSharedWithIds(pageId, userIds));
+
+        BulkResultDTO result = new BulkResultDTO();
+        Set<String> seen = new HashSet<>();
+        List<PageShare> shares = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        List<BulkResultDTO.RecipientResult> shared = new ArrayList<>();
+        List<String> toEmails = new ArrayList<>();
+        String message = sharedBy.getFullName() + " shared a page with you: " + page.getTitle();
+        for (BulkRecipientsRequest.Recipient recipient : recipients) {
+            String email = recipient.getEmail() == null ? null : recipient.getEmail().trim();
+            String permission = recipient.getAccess() == null ? "VIEW" : recipient.getAccess().toUpperCase();
+            User sharedWith = email == null ? null : usersByEmail.get(email);
+            if (email == null || email.isEmpty()) {
+                result.failed(email, "INVALID", "Email is required");
+            } else if (!seen.add(email)) {
+                result.failed(email, "DUPLICATE", "Email is listed more than once");
+            } else if (!"VIEW".equals(permission) && !"EDIT".equals(permission)) {
+                result.failed(email, "INVALID_PERMISSION", "Permission must be VIEW or EDIT");
+            } else if (sharedWith == null) {
+                result.failed(email, "NOT_FOUND", "User with email '" + email + "' not found");
+            } else if (sharedWith.getId().equals(sharedById)) {
+                result.failed(email, "SELF", "Cannot share with yourself");
+            } else if (alreadyShared.contains(sharedWith.getId())) {
+                result.failed(email, "ALREADY_SHARED", "Page already shared with this user");
+            } else {
+                shares.add(new PageShare(page, sharedBy, sharedWith, permission));
+                notifications.add(new Notification(sharedWith, "New Page Shared", message,
+                        com.notekeeper.notekeeper.model.NotificationType.SHARE));
+                shared.add(result.succeeded(email, "SHARED"));
+                toEmails.add(sharedWith.getEmail());
+            }
+        }
+        if (shares.isEmpty()) {
+            return result;
+        }
+
+        pageShareRepository.saveAll(shares);
+        for (int i = 0; i < shares.size(); i++) {
+            shared.get(i).setId(shares.get(i).getId());
+            permissionCache.evictPageUser(pageId, shares.get(i).getSharedWith().getId());
+        }
+        notificationService.createNotifications(notifications);
+        emailService.queueShareNotifications(toEmails, sharedBy.getFullName(), page.getTitle(), "Page");
+        return result;
+    }
+
     public List<PageShare> getPageShares(String pageId) {
         return pageShareRepository.findByPageId(pageId);
     }
@@ -100,6 +185,7 @@ public class PageShareService {
                 .orElseThrow(() -> new ResourceNotFoundException("Share not found"));
 
         share.setPermission(permission);
+        permissionCache.evictPageUser(share.getPage().getId(), share.getSharedWith().getId());
         return pageShareRepository.save(share);
     }
 
@@ -108,5 +194,6 @@ public class PageShareService {
         PageShare share = pageShareRepository.findById(shareId)
                 .orElseThrow(() -> new ResourceNotFoundException("Share not found"));
         pageShareRepository.delete(share);
+        permissionCache.evictPageUser(share.getPage().getId(), share.getSharedWith().getId());
     }
 }
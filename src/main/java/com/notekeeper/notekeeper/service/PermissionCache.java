@@ -0,0 +1,123 @@
+package com.notekeeper.notekeeper.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notekeeper.notekeeper.model.PagePermission;
+import com.notekeeper.notekeeper.model.WorkspaceRole;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Permission decisions shared across requests, bounded in size and age.
+ *
+ * Services that change the facts behind a decision (shares, memberships,
+ * page moves, workspace deletes) evict the affected entries once their
+ * transaction commits. The TTL only bounds what slips through, such as
+ * changes made directly in the database or on another instance.
+ *
+ * Hit/miss counts are published as cache.gets{cache=permission.page|permission.workspace}.
+ */
+@Component
+public class PermissionCache {
+
+    private record PageKey(String pageId, String userId) {
+    }
+
+    private record PageDecision(PagePermission permission, String workspaceId) {
+    }
+
+    private record WorkspaceKey(String workspaceId, String userId) {
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${permission.cache.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${permission.cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<PageKey, PageDecision> pageDecisions;
+
+    // Optional.empty() = not a member
+    private Cache<WorkspaceKey, Optional<WorkspaceRole>> workspaceDecisions;
+
+    @PostConstruct
+    void init() {
+        pageDecisions = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        workspaceDecisions = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pageDecisions, "permission.page");
+        CaffeineCacheMetrics.monitor(meterRegistry, workspaceDecisions, "permission.workspace");
+    }
+
+    // READ
+    public PagePermission getPagePermission(String pageId, String userId) {
+        PageDecision decision = pageDecisions.getIfPresent(new PageKey(pageId, userId));
+        return decision != null ? decision.permission() : null;
+    }
+
+    public void putPagePermission(String pageId, String userId, String workspaceId, PagePermission permission) {
+        pageDecisions.put(new PageKey(pageId, userId), new PageDecision(permission, workspaceId));
+    }
+
+    // null = not cached
+    public Optional<WorkspaceRole> getWorkspaceRole(String workspaceId, String userId) {
+        return workspaceDecisions.getIfPresent(new WorkspaceKey(workspaceId, userId));
+    }
+
+    public void putWorkspaceRole(String workspaceId, String userId, WorkspaceRole role) {
+        workspaceDecisions.put(new WorkspaceKey(workspaceId, userId), Optional.ofNullable(role));
+    }
+
+    // INVALIDATION (applied after the surrounding transaction commits)
+
+    // A share for this user on this page was created, changed or removed
+    public void evictPageUser(String pageId, String userId) {
+        afterCommit(() -> pageDecisions.invalidate(new PageKey(pageId, userId)));
+    }
+
+    // The page moved to another workspace or was deleted
+    public void evictPage(String pageId) {
+        afterCommit(() -> pageDecisions.asMap().keySet().removeIf(key -> key.pageId().equals(pageId)));
+    }
+
+    // The user's membership in this workspace was added, changed or removed
+    public void evictWorkspaceUser(String workspaceId, String userId) {
+        afterCommit(() -> {
+            workspaceDecisions.invalidate(new WorkspaceKey(workspaceId, userId));
+            pageDecisions.asMap().entrySet().removeIf(entry -> entry.getKey().userId().equals(userId)
+                    && workspaceId.equals(entry.getValue().workspaceId()));
+        });
+    }
+
+    // The workspace was deleted
+    public void evictWorkspace(String workspaceId) {
+        afterCommit(() -> {
+            workspaceDecisions.asMap().keySet().removeIf(key -> key.workspaceId().equals(workspaceId));
+            pageDecisions.asMap().values().removeIf(decision -> workspaceId.equals(decision.workspaceId()));
+        });
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -1,18 +1,16 @@
 package com.notekeeper.notekeeper.service;
 
+import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
 import com.notekeeper.notekeeper.exception.UnauthorizedException;
-import com.notekeeper.notekeeper.model.Page;
-import com.notekeeper.notekeeper.model.PageShare;
-import com.notekeeper.notekeeper.model.Workspace;
-import com.notekeeper.notekeeper.model.WorkspaceMember;
+import com.notekeeper.notekeeper.model.PagePermission;
 import com.notekeeper.notekeeper.model.WorkspaceRole;
 import com.notekeeper.notekeeper.repository.PageRepository;
-import com.notekeeper.notekeeper.repository.PageShareRepository;
-import com.notekeeper.notekeeper.repository.WorkspaceMemberRepository;
 import com.notekeeper.notekeeper.repository.WorkspaceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -22,54 +20,65 @@ public class PermissionService {
     private PageRepository pageRepository;
 
     @Autowired
-    private PageShareRepository pageShareRepository;
+    private WorkspaceRepository workspaceRepository;
 
     @Autowired
-    private WorkspaceMemberRepository workspaceMemberRepository;
+    private RequestPermissionCache requestCache;
 
     @Autowired
-    private WorkspaceRepository workspaceRepository;
+    private PermissionCache permissionCache;
 
     /**
      * Validates if a user has permission to access or modify a page.
+     * On a cache miss the page is fetched by the same statement that resolves
+     * the permission and stays in the request's persistence context, so a
+     * following pageService.getPageById in the same request needs no extra query.
      * 
      * @param pageId             The page ID
      * @param userId             The user ID
      * @param requiredPermission "READ" or "EDIT"
      */
     public void validatePageAccess(String pageId, String userId, String requiredPermission) {
-        Page page = pageRepository.findById(pageId)
-                .orElseThrow(() -> new com.notekeeper.notekeeper.exception.ResourceNotFoundException("Page not found"));
-
-        // 1. Owner has full access
-        if (page.getUser().getId().equals(userId)) {
-            return;
+        if (!resolvePagePermission(pageId, userId).allows(requiredPermission)) {
+            throw new UnauthorizedException(
+                    "You do not have permission to " + requiredPermission.toLowerCase() + " this page");
         }
+    }
 
-        // 2. Check direct page shares
-        PageShare share = pageShareRepository.findByPageIdAndSharedWithId(pageId, userId).orElse(null);
-        if (share != null) {
-            if ("READ".equals(requiredPermission))
-                return;
-            if ("EDIT".equals(requiredPermission) && "EDIT".equals(share.getPermission()))
-                return;
+    /**
+     * Effective permission of a user on a page: owner, direct share or workspace membership,
+     * whichever grants the most.
+     */
+    public PagePermission resolvePagePermission(String pageId, String userId) {
+        boolean inRequest = RequestContextHolder.getRequestAttributes() != null;
+        if (inRequest) {
+            PagePermission cached = requestCache.getPagePermission(pageId, userId);
+            if (cached != null) {
+                return cached;
+            }
         }
 
-        // 3. Check workspace membership
-        if (page.getWorkspace() != null) {
-            WorkspaceMember member = workspaceMemberRepository
-                    .findByWorkspaceIdAndUserId(page.getWorkspace().getId(), userId).orElse(null);
-            if (member != null) {
-                if ("READ".equals(requiredPermission))
-                    return;
-                if ("EDIT".equals(requiredPermission)
-                        && (member.getRole() == WorkspaceRole.OWNER || member.getRole() == WorkspaceRole.EDITOR))
-                    return;
+        PagePermission permission = permissionCache.getPagePermission(pageId, userId);
+        if (permission == null) {
+            List<Object[]> rows = pageRepository.findPageAccess(pageId, userId);
+            if (rows.isEmpty()) {
+                throw new ResourceNotFoundException("Page not found");
             }
+            permission = PagePermission.NONE;
+            for (Object[] row : rows) {
+                PagePermission candidate = PagePermission.valueOf((String) row[1]);
+                if (candidate.compareTo(permission) > 0) {
+                    permission = candidate;
+                }
+            }
+            String workspaceId = ((com.notekeeper.notekeeper.model.Page) rows.get(0)[0]).getWorkspace().getId();
+            permissionCache.putPagePermission(pageId, userId, workspaceId, permission);
         }
 
-        throw new UnauthorizedException(
-                "You do not have permission to " + requiredPermission.toLowerCase() + " this page");
+        if (inRequest) {
+            requestCache.putPagePermission(pageId, userId, permission);
+        }
+        return permission;
     }
 
     /**
@@ -77,19 +86,41 @@ public class PermissionService {
      * Allows workspace owner (from Workspace entity) or members with required role.
      */
     public void validateWorkspaceAccess(String workspaceId, String userId, WorkspaceRole requiredRole) {
-        // First check if user is the workspace owner
-        Optional<Workspace> workspaceOpt = workspaceRepository.findById(workspaceId);
-        if (workspaceOpt.isPresent() && workspaceOpt.get().getOwner().getId().equals(userId)) {
-            return; // Workspace owner has full access
+        WorkspaceRole role = resolveWorkspaceRole(workspaceId, userId);
+        if (role == null) {
+            throw new UnauthorizedException("You are not a member of this workspace");
+        }
+        if (getRoleLevel(role) < getRoleLevel(requiredRole)) {
+            throw new UnauthorizedException("Insufficient workspace permissions");
+        }
+    }
+
+    // OWNER for the workspace owner, otherwise the member role, or null for non-members
+    public WorkspaceRole resolveWorkspaceRole(String workspaceId, String userId) {
+        boolean inRequest = RequestContextHolder.getRequestAttributes() != null;
+        if (inRequest && requestCache.hasWorkspaceRole(workspaceId, userId)) {
+            return requestCache.getWorkspaceRole(workspaceId, userId);
         }
 
-        // Then check membership
-        WorkspaceMember member = workspaceMemberRepository.findByWorkspaceIdAndUserId(workspaceId, userId)
-                .orElseThrow(() -> new UnauthorizedException("You are not a member of this workspace"));
+        Optional<WorkspaceRole> cached = permissionCache.getWorkspaceRole(workspaceId, userId);
+        WorkspaceRole role = null;
+        if (cached != null) {
+            role = cached.orElse(null);
+        } else {
+            for (Object[] row : workspaceRepository.findWorkspaceAccess(workspaceId, userId)) {
+                if (userId.equals(row[0])) {
+                    role = WorkspaceRole.OWNER;
+                } else if (row[1] != null && (role == null || getRoleLevel((WorkspaceRole) row[1]) > getRoleLevel(role))) {
+                    role = (WorkspaceRole) row[1];
+                }
+            }
+            permissionCache.putWorkspaceRole(workspaceId, userId, role);
+        }
 
-        if (getRoleLevel(member.getRole()) < getRoleLevel(requiredRole)) {
-            throw new UnauthorizedException("Insufficient workspace permissions");
+        if (inRequest) {
+            requestCache.putWorkspaceRole(workspaceId, userId, role);
         }
+        return role;
     }
 
     private int getRoleLevel(WorkspaceRole role) {
@@ -0,0 +1,43 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.model.PagePermission;
+import com.notekeeper.notekeeper.model.WorkspaceRole;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Permission decisions already made during the current HTTP request, so a
+ * page or workspace checked twice in one request is only resolved once.
+ */
+@Component
+@RequestScope
+public class RequestPermissionCache {
+
+    private final Map<String, PagePermission> pagePermissions = new HashMap<>();
+
+    // null value = not a member
+    private final Map<String, WorkspaceRole> workspaceRoles = new HashMap<>();
+
+    public PagePermission getPagePermission(String pageId, String userId) {
+        return pagePermissions.get(pageId + ":" + userId);
+    }
+
+    public void putPagePermission(String pageId, String userId, PagePermission permission) {
+        pagePermissions.put(pageId + ":" + userId, permission);
+    }
+
+    public boolean hasWorkspaceRole(String workspaceId, String userId) {
+        return workspaceRoles.containsKey(workspaceId + ":" + userId);
+    }
+
+    public WorkspaceRole getWorkspaceRole(String workspaceId, String userId) {
+        return workspaceRoles.get(workspaceId + ":" + userId);
+    }
+
+    public void putWorkspaceRole(String workspaceId, String userId, WorkspaceRole role) {
+        workspaceRoles.put(workspaceId + ":" + userId, role);
+    }
+}
@@ -0,0 +1,271 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.exception.BadRequestException;
+import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
+import com.notekeeper.notekeeper.model.Attachment;
+import com.notekeeper.notekeeper.model.UploadSession;
+import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.repository.UploadSessionRepository;
+import com.notekeeper.notekeeper.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resumable uploads for files too large to send in one request:
+ *
+ *   create:   declares the size; a staging file of that length is allocated
+ *             (sparse, so disk is only used as chunks arrive)
+ *   write:    the request body is written at offset, which may not be past
+ *             the received prefix; bytes already received are skipped
+ *   progress: the received offset, where an interrupted client resumes
+ *   complete: hashes the file and stores it like any other upload, once no
+ *             chunk is being written (see UploadSession)
+ *
+ * A chunk of any size is streamed to disk through one fixed buffer, and no
+ * database connection is held while it is read. Bytes that reached the file
+ * before a connection dropped still count. Sessions untouched for
+ * attachment.upload.session-ttl are deleted along with their files.
+ */
+@Service
+public class ResumableUploadService {
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private PageRepository pageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+
+    @Value("${attachment.upload.max-size:500MB}")
+    private DataSize maxSize;
+
+    @Value("${attachment.upload.session-ttl:24h}")
+    private Duration sessionTtl;
+
+    // A chunk writer registered longer ago than this is assumed dead and no longer blocks completion
+    @Value("${attachment.upload.write-timeout:1h}")
+    private Duration writeTimeout;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int CLEANUP_BATCH_SIZE = 100;
+
+    @Transactional
+    public UploadSession create(String pageId, String userId, String fileName, String contentType, long size) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new BadRequestException("fileName is required");
+        }
+
+        if (size <= 0) {
+            throw new BadRequestException("File is empty");
+        }
+
+        if (size > maxSize.toBytes()) {
+            throw new BadRequestException("File size exceeds " + maxSize.toMegabytes() + "MB limit");
+        }
+
+        if (!pageRepository.existsById(pageId)) {
+            throw new ResourceNotFoundException("Page not found");
+        }
+
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found");
+        }
+
+        Path staged = null;
+        try {
+            staged = attachmentBlobStore.newStagingFile();
+            try (RandomAccessFile file = new RandomAccessFile(staged.toFile(), "rw")) {
+                file.setLength(size);
+            }
+
+            UploadSession session = new UploadSession(pageId, userId, fileName,
+                    contentType != null ? contentType : "application/octet-stream", size, staged.toString());
+            session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+            return uploadSessionRepository.save(session);
+        } catch (IOException e) {
+            AttachmentService.deleteQuietly(staged);
+            throw new RuntimeException("Failed to create upload: " + e.getMessage());
+        } catch (RuntimeException e) {
+            AttachmentService.deleteQuietly(staged);
+            throw e;
+        }
+    }
+
+    public UploadSession getSession(String id) {
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found"));
+    }
+
+    /**
+     * Writes the body at offset and returns the updated session. Bytes below
+     * the received offset are already counted and are skipped, not written
+     * again. Not transactional: the writer is registered and released in
+     * short updates around the time the file is open, and the received
+     * offset advances on release once the bytes are on disk.
+     */
+    public UploadSession write(String id, long offset, InputStream body) {
+        if (offset < 0) {
+            throw new BadRequestException("offset must not be negative");
+        }
+        if (uploadSessionRepository.claimWrite(id, offset, LocalDateTime.now()) == 0) {
+            UploadSession session = getSession(id);
+            if (UploadSession.COMPLETING.equals(session.getStatus())) {
+                throw new BadRequestException("Upload is being completed");
+            }
+            throw new BadRequestException("Chunk must start at or before offset " + session.getReceived());
+        }
+
+        UploadSession session = getSession(id);
+        long received = session.getReceived();
+        long position = offset;
+        IOException interrupted = null;
+        try (FileChannel out = FileChannel.open(Paths.get(session.getStagingPath()), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (true) {
+                int read;
+                try {
+                    read = body.read(buffer);
+                } catch (IOException e) {
+                    // Client went away mid-chunk: keep what was written so it can resume from there
+                    interrupted = e;
+                    break;
+                }
+                if (read == -1) {
+                    break;
+                }
+                if (position + read > session.getTotalSize()) {
+                    throw new BadRequestException("Chunk runs past the declared size of "
+                            + session.getTotalSize() + " bytes");
+                }
+                int skip = (int) Math.max(0, Math.min(read, received - position));
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, skip, read - skip);
+                long target = position + skip;
+                while (chunk.hasRemaining()) {
+                    target += out.write(chunk, target);
+                }
+                position += read;
+            }
+            // Only count bytes once they are durable
+            out.force(false);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Upload not found");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write chunk: " + e.getMessage());
+        } finally {
+            uploadSessionRepository.releaseWrite(id, offset, position, LocalDateTime.now().plus(sessionTtl));
+        }
+
+        if (interrupted != null) {
+            throw new RuntimeException("Upload interrupted at offset " + position + ": " + interrupted.getMessage());
+        }
+        return getSession(id);
+    }
+
+    /**
+     * Turns a fully received upload into an Attachment. The session is first
+     * claimed as COMPLETING, which waits for no writer and turns new chunks
+     * away, and the file is then hashed outside any transaction. With
+     * expectedHash (hex SHA-256) the content is verified; on a mismatch the
+     * upload is discarded, since the bad range cannot be told apart.
+     */
+    public Attachment complete(String id, String expectedHash) {
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadSessionRepository.claimComplete(id, now.minus(writeTimeout), now.plus(sessionTtl)) == 0) {
+            UploadSession session = getSession(id);
+            if (UploadSession.COMPLETING.equals(session.getStatus())) {
+                throw new BadRequestException("Upload is already being completed");
+            }
+            if (!session.isComplete()) {
+                throw new BadRequestException("Upload incomplete: received " + session.getReceived() + " of "
+                        + session.getTotalSize() + " bytes");
+            }
+            throw new BadRequestException("A chunk is still being written");
+        }
+
+        UploadSession session = getSession(id);
+        String contentHash;
+        try {
+            contentHash = AttachmentService.sha256(Paths.get(session.getStagingPath()));
+        } catch (IOException e) {
+            uploadSessionRepository.reopen(id);
+            throw new RuntimeException("Failed to read upload: " + e.getMessage());
+        }
+        if (expectedHash != null && !expectedHash.equalsIgnoreCase(contentHash)) {
+            discard(session);
+            throw new BadRequestException("Checksum mismatch: received content hashes to " + contentHash
+                    + ", the upload was discarded");
+        }
+
+        try {
+            return attachmentService.saveUpload(session, contentHash);
+        } catch (IOException e) {
+            uploadSessionRepository.reopen(id);
+            throw new RuntimeException("Failed to save file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            uploadSessionRepository.reopen(id);
+            throw e;
+        }
+    }
+
+    @Transactional
+    public void cancel(String id) {
+        UploadSession session = uploadSessionRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found"));
+        if (UploadSession.COMPLETING.equals(session.getStatus())) {
+            throw new BadRequestException("Upload is being completed");
+        }
+        uploadSessionRepository.delete(session);
+        AttachmentService.deleteQuietly(Paths.get(session.getStagingPath()));
+    }
+
+    private void discard(UploadSession session) {
+        uploadSessionRepository.deleteById(session.getId());
+        AttachmentService.deleteQuietly(Paths.get(session.getStagingPath()));
+    }
+
+    @Scheduled(cron = "${attachment.upload.cleanup-cron:0 40 * * * *}")
+    public void deleteExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        List<UploadSession> expired;
+        do {
+            expired = uploadSessionRepository.findExpired(now, PageRequest.of(0, CLEANUP_BATCH_SIZE));
+            uploadSessionRepository.deleteAllInBatch(expired);
+            for (UploadSession session : expired) {
+                AttachmentService.deleteQuietly(Paths.get(session.getStagingPath()));
+            }
+            deleted += expired.size();
+        } while (expired.size() == CLEANUP_BATCH_SIZE);
+
+        if (deleted > 0) {
+            System.out.println("✅ Upload cleanup: removed " + deleted + " expired uploads");
+        }
+    }
+}
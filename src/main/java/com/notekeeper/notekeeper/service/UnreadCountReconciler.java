@@ -0,0 +1,33 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.repository.NotificationCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Recounts notification_counters from the notifications table. UnreadCounter
+ * keeps them current, but notifications removed by cascades (deleting a user)
+ * or edited directly in the database leave them off. Runs once at startup
+ * to backfill and then on notification.unread.reconcile.cron.
+ */
+@Service
+public class UnreadCountReconciler {
+
+    @Autowired
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${notification.unread.reconcile.cron:0 45 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        int corrected = notificationCounterRepository.reconcileUnread() + notificationCounterRepository.resetStale();
+        notificationCounterRepository.deleteOrphans();
+        if (corrected > 0) {
+            System.out.println("⚠️ Corrected unread notification counts for " + corrected + " users");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.repository.NotificationCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keeps notification_counters in step with the notifications table. Callers
+ * pass the exact number of rows they flipped or removed, in the same
+ * transaction, so concurrent changes add up correctly; the delta is also
+ * pushed to the user's notification stream once the transaction commits.
+ */
+@Component
+public class UnreadCounter {
+
+    @Autowired
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    public long get(String userId) {
+        return notificationCounterRepository.findUnreadByUserId(userId).orElse(0);
+    }
+
+    @Transactional
+    public void adjust(String userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        notificationCounterRepository.adjust(userId, Math.toIntExact(delta));
+        notificationStreamService.unreadChanged(userId, delta);
+    }
+
+    /**
+     * Takes the unread pending invitations older than before off their users'
+     * counters, in one statement. Call it with those notifications locked and
+     * before marking them read; unreadByUser (user id -> how many) is only
+     * used for the stream.
+     */
+    @Transactional
+    public void expireInvitations(LocalDateTime before, Map<String, Long> unreadByUser) {
+        if (unreadByUser.isEmpty()) {
+            return;
+        }
+        notificationCounterRepository.subtractExpiringInvitations(before);
+        unreadByUser.forEach((userId, unread) -> notificationStreamService.unreadChanged(userId, -unread));
+    }
+
+    // One new unread notification for each of the users, ids must be distinct
+    @Transactional
+    public void incrementAll(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        notificationCounterRepository.incrementAll(userIds);
+        for (String userId : userIds) {
+            notificationStreamService.unreadChanged(userId, 1);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.repository.AttachmentRepository;
+import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.repository.UploadSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Removes files in the upload directory that nothing references any more,
+ * such as those of attachments deleted along with their page or workspace
+ * (cascade deletes never reach AttachmentService.deleteAttachment).
+ *
+ * Each run checks at most attachment.gc.files-per-run files, in name order,
+ * and the next run carries on after the last one, so a large store is
+ * covered over several runs instead of one long burst of IO. Files are
+ * looked up in batches of attachment.gc.batch-size against
+ * attachments.file_path and pages.cover_image (staging files against
+ * upload_sessions). Files younger than attachment.gc.min-age are skipped so
+ * uploads that have not committed yet are never touched.
+ *
+ * An unreferenced file is moved to .quarantine/ in the upload directory,
+ * from where it can still be restored, and deleted at the start of the first
+ * pass after attachment.gc.quarantine-period. Image variants are deleted
+ * outright once their original is gone. Blob files are re-checked under
+ * their attachment_blobs row lock, which also corrects ref_count
+ * (AttachmentBlobStore.reclaim).
+ *
+ * Metrics: attachment.gc.quarantined (files) and attachment.gc.reclaimed
+ * (bytes freed).
+ */
+@Service
+public class UploadGarbageCollector {
+
+    private static final String QUARANTINE_DIR = ".quarantine";
+
+    // Multipart temp files (spring.servlet.multipart.location), owned by the servlet container
+    private static final String INCOMING_DIR = ".incoming";
+
+    private static final Pattern VARIANT = Pattern.compile("(.+)\\.(thumb|card|full)\\.(jpg|png)");
+
+    // Joins path names in walk keys; sorts before any file name character, so keys order like the walk
+    private static final char SEPARATOR = '\0';
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private PageRepository pageRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private AttachmentBlobStore attachmentBlobStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${file.upload.dir:uploads/attachments/}")
+    private String uploadDir;
+
+    @Value("${attachment.gc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${attachment.gc.files-per-run:2000}")
+    private int filesPerRun;
+
+    @Value("${attachment.gc.min-age:1d}")
+    private Duration minAge;
+
+    @Value("${attachment.gc.quarantine-period:7d}")
+    private Duration quarantinePeriod;
+
+    // Walk key of the last file checked; null starts a new pass
+    private String cursor;
+
+    private Counter quarantinedFiles;
+    private Counter reclaimedBytes;
+
+    private static class Run {
+        private final Path root;
+        private final String resumeAfter;
+        private final Instant cutoff;
+        private final List<Path> batch = new ArrayList<>();
+        private String cursor;
+        private int checked;
+        private int quarantined;
+        private long reclaimed;
+        private boolean stopped;
+
+        Run(Path root, String resumeAfter, Instant cutoff) {
+            this.root = root;
+            this.resumeAfter = resumeAfter;
+            this.cursor = resumeAfter;
+            this.cutoff = cutoff;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        quarantinedFiles = Counter.builder("attachment.gc.quarantined")
+                .description("Unreferenced upload files moved to quarantine").register(meterRegistry);
+        reclaimedBytes = Counter.builder("attachment.gc.reclaimed").baseUnit("bytes")
+                .description("Disk space freed by deleting unreferenced upload files").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${attachment.gc.interval:60000}",
+            initialDelayString = "${attachment.gc.initial-delay:300000}")
+    public void run() {
+        Path root = Paths.get(uploadDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+
+        Run run = new Run(root, cursor, Instant.now().minus(minAge));
+        try {
+            if (run.resumeAfter == null) {
+                run.reclaimed += purgeQuarantine(root);
+            }
+            scan(root, run);
+            flush(run);
+            cursor = run.stopped ? run.cursor : null;
+        } catch (IOException | UncheckedIOException e) {
+            // Resumes after the last batch that was fully checked
+            cursor = run.cursor;
+            System.err.println("⚠️ Upload GC stopped after " + run.checked + " files: " + e.getMessage());
+        }
+
+        if (run.quarantined > 0 || run.reclaimed > 0) {
+            System.out.println("✅ Upload GC: checked " + run.checked + " files, quarantined " + run.quarantined
+                    + ", reclaimed " + run.reclaimed + " bytes");
+        }
+    }
+
+    // Depth-first in name order, skipping everything up to the previous run's cursor
+    private void scan(Path dir, Run run) throws IOException {
+        List<Path> children;
+        try (Stream<Path> listing = Files.list(dir)) {
+            children = listing.sorted(Comparator.comparing(child -> child.getFileName().toString())).toList();
+        }
+
+        for (Path child : children) {
+            if (run.stopped) {
+                return;
+            }
+            String key = keyOf(run.root, child);
+            if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                if (dir.equals(run.root) && (key.equals(QUARANTINE_DIR) || key.equals(INCOMING_DIR))) {
+                    continue;
+                }
+                if (run.resumeAfter != null && key.compareTo(run.resumeAfter) < 0
+                        && !run.resumeAfter.startsWith(key + SEPARATOR)) {
+                    continue;
+                }
+                scan(child, run);
+            } else if (Files.isRegularFile(child, LinkOption.NOFOLLOW_LINKS)
+                    && (run.resumeAfter == null || key.compareTo(run.resumeAfter) > 0)) {
+                run.batch.add(child);
+                if (run.batch.size() >= batchSize) {
+                    flush(run);
+                }
+            }
+        }
+    }
+
+    private void flush(Run run) throws IOException {
+        if (run.batch.isEmpty()) {
+            return;
+        }
+        List<Path> batch = new ArrayList<>(run.batch);
+        run.batch.clear();
+
+        Map<String, Path> candidates = new LinkedHashMap<>();
+        List<Path> variants = new ArrayList<>();
+        for (Path file : batch) {
+            FileTime modified;
+            try {
+                modified = Files.getLastModifiedTime(file);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            if (modified.toInstant().isAfter(run.cutoff)) {
+                continue;
+            }
+            if (VARIANT.matcher(file.getFileName().toString()).matches()) {
+                variants.add(file);
+            } else {
+                candidates.put(file.toString(), file);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> referenced = new HashSet<>(attachmentRepository.findFilePathsIn(candidates.keySet()));
+            referenced.addAll(pageRepository.findCoverImagesIn(candidates.keySet()));
+            referenced.addAll(uploadSessionRepository.findStagingPathsIn(candidates.keySet()));
+            for (Map.Entry<String, Path> candidate : candidates.entrySet()) {
+                if (!referenced.contains(candidate.getKey())) {
+                    quarantine(run, candidate.getValue());
+                }
+            }
+        }
+
+        // After the candidates, so variants of an original quarantined above go in the same batch
+        for (Path variant : variants) {
+            Matcher matcher = VARIANT.matcher(variant.getFileName().toString());
+            if (matcher.matches() && !Files.exists(variant.resolveSibling(matcher.group(1)))) {
+                run.reclaimed += delete(variant);
+            }
+        }
+
+        run.cursor = keyOf(run.root, batch.get(batch.size() - 1));
+        run.checked += batch.size();
+        if (run.checked >= filesPerRun) {
+            run.stopped = true;
+        }
+    }
+
+    private void quarantine(Run run, Path file) {
+        Path target = run.root.resolve(QUARANTINE_DIR).resolve(run.root.relativize(file));
+        try {
+            String hash = attachmentBlobStore.hashOf(file);
+            if (hash != null) {
+                if (!attachmentBlobStore.reclaim(hash, target)) {
+                    return;
+                }
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // The quarantine period counts from now
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            run.quarantined++;
+            quarantinedFiles.increment();
+        } catch (NoSuchFileException e) {
+            // Deleted in the meantime
+        } catch (IOException e) {
+            System.err.println("⚠️ Upload GC could not quarantine " + file + ": " + e.getMessage());
+        }
+    }
+
+    private long purgeQuarantine(Path root) throws IOException {
+        Path quarantine = root.resolve(QUARANTINE_DIR);
+        if (!Files.isDirectory(quarantine)) {
+            return 0;
+        }
+        Instant expiry = Instant.now().minus(quarantinePeriod);
+        long reclaimed = 0;
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(quarantine)) {
+            // Deepest first, so directories are emptied before they are visited
+            entries = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path entry : entries) {
+            if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                if (!entry.equals(quarantine)) {
+                    try {
+                        Files.delete(entry);
+                    } catch (DirectoryNotEmptyException e) {
+                        // Still holds files in their quarantine period
+                    }
+                }
+            } else if (Files.getLastModifiedTime(entry, LinkOption.NOFOLLOW_LINKS).toInstant().isBefore(expiry)) {
+                reclaimed += delete(entry);
+            }
+        }
+        return reclaimed;
+    }
+
+    private long delete(Path file) {
+        try {
+            long size = Files.size(file);
+            Files.delete(file);
+            reclaimedBytes.increment(size);
+            return size;
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Failed to delete physical file: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static String keyOf(Path root, Path file) {
+        StringBuilder key = new StringBuilder();
+        for (Path name : root.relativize(file)) {
+            if (key.length() > 0) {
+                key.append(SEPARATOR);
+            }
+            key.append(name);
+        }
+        return key.toString();
+    }
+}
@@ -1,6 +1,8 @@
 package com.notekeeper.notekeeper.service;
 
 import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.security.PrincipalCache;
+import com.notekeeper.notekeeper.security.TokenVersions;
 import com.notekeeper.notekeeper.model.UserProfile;
 import com.notekeeper.notekeeper.model.Workspace;
 import com.notekeeper.notekeeper.model.WorkspaceMember;
@@ -12,6 +14,7 @@ import com.notekeeper.notekeeper.repository.WorkspaceRepository;
 import com.notekeeper.notekeeper.repository.LocationRepository;
 import com.notekeeper.notekeeper.repository.PasswordResetTokenRepository;
 import com.notekeeper.notekeeper.model.PasswordResetToken;
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.dto.UserDTO;
 import com.notekeeper.notekeeper.dto.UserProfileDTO;
 import com.notekeeper.notekeeper.mapper.DTOMapper;
@@ -54,6 +57,15 @@ public class UserService {
     @Autowired
     private DTOMapper dtoMapper;
 
+    @Autowired
+    private PermissionCache permissionCache;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenVersions tokenVersions;
+
     // CREATE
     @Transactional
     public User createUser(User user) {
@@ -158,13 +170,16 @@ public class UserService {
         if (updatedUser.getPhoneNumber() != null) {
             existingUser.setPhoneNumber(updatedUser.getPhoneNumber());
         }
-        if (updatedUser.getRole() != null) {
+        if (updatedUser.getRole() != null && !updatedUser.getRole().equals(existingUser.getRole())) {
             existingUser.setRole(updatedUser.getRole());
+            // Tokens carry the role, so make the user sign in again
+            tokenVersions.revoke(existingUser.getId());
         }
         if (updatedUser.getGender() != null) {
             existingUser.setGender(updatedUser.getGender());
         }
 
+        principalCache.evict(existingUser.getUsername());
         return userRepository.save(existingUser);
     }
 
@@ -227,6 +242,7 @@ public class UserService {
         }
 
         User saved = userRepository.save(user);
+        principalCache.evict(saved.getUsername());
 
         // Update profile if provided
         if (userDTO.getProfile() != null) {
@@ -258,9 +274,12 @@ public class UserService {
         List<Workspace> ownedWorkspaces = workspaceRepository.findByOwnerId(user.getId());
         if (ownedWorkspaces != null && !ownedWorkspaces.isEmpty()) {
             workspaceRepository.deleteAll(ownedWorkspaces);
+            ownedWorkspaces.forEach(w -> permissionCache.evictWorkspace(w.getId()));
         }
 
         userRepository.delete(user);
+        principalCache.evict(user.getUsername());
+        tokenVersions.revoke(user.getId());
     }
 
     // DTO-based delete
@@ -283,6 +302,8 @@ public class UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user.getUsername());
+        tokenVersions.revoke(user.getId());
     }
 
     @Transactional
@@ -307,6 +328,8 @@ public class UserService {
         
         // Explicit save and flush to ensure it hits the DB
         userRepository.saveAndFlush(user);
+        principalCache.evict(user.getUsername());
+        tokenVersions.revoke(user.getId());
 
         // Mark token as used
         resetToken.setUsed(true);
@@ -335,6 +358,25 @@ public class UserService {
         return getUsersPaginated(page, size).map(dtoMapper::toUserDTO);
     }
 
+    // Keyset pagination: constant cost at any depth, total only counted on request
+    public CursorPageDTO<User> getUsersByCursor(String cursor, int size, boolean includeTotal) {
+        KeysetCursor.validateSize(size);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<User> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userRepository.findUsersFirst(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = userRepository.findUsersAfter(after.getTimestamp(), after.getId(), limit);
+        }
+        Long total = includeTotal ? userRepository.count() : null;
+        return CursorPageDTO.of(rows, size, u -> KeysetCursor.encode(u.getCreatedAt(), u.getId()), total);
+    }
+
+    public CursorPageDTO<UserDTO> getUsersByCursorDTO(String cursor, int size, boolean includeTotal) {
+        return getUsersByCursor(cursor, size, includeTotal).map(dtoMapper::toUserDTO);
+    }
+
     public Page<User> getUsersByLocationPaginated(String locationName, int page, int size) {
         return userRepository.findByLocationNamePaginated(locationName, PageRequest.of(page, size));
     }
@@ -0,0 +1,329 @@
+package com.notekeeper.notekeeper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notekeeper.notekeeper.dto.BulkRecipientsRequest;
+import com.notekeeper.notekeeper.dto.BulkResultDTO;
+import com.notekeeper.notekeeper.dto.WorkspaceInvitationDTO;
+import com.notekeeper.notekeeper.exception.BadRequestException;
+import com.notekeeper.notekeeper.exception.ResourceNotFoundException;
+import com.notekeeper.notekeeper.mapper.DTOMapper;
+import com.notekeeper.notekeeper.model.Notification;
+import com.notekeeper.notekeeper.model.NotificationType;
+import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.model.Workspace;
+import com.notekeeper.notekeeper.model.WorkspaceInvitation;
+import com.notekeeper.notekeeper.model.WorkspaceRole;
+import com.notekeeper.notekeeper.repository.NotificationRepository;
+import com.notekeeper.notekeeper.repository.UserRepository;
+import com.notekeeper.notekeeper.repository.WorkspaceInvitationRepository;
+import com.notekeeper.notekeeper.repository.WorkspaceMemberRepository;
+import com.notekeeper.notekeeper.repository.WorkspaceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Workspace invitations live in workspace_invitations, keyed by workspace,
+ * invitee and status. The invitee still gets a WORKSPACE_INVITE notification
+ * to accept or decline from; its metadata is for display only and is never
+ * parsed back.
+ */
+@Service
+public class WorkspaceInvitationService {
+
+    @Autowired
+    private WorkspaceInvitationRepository invitationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WorkspaceRepository workspaceRepository;
+
+    @Autowired
+    private WorkspaceMemberService workspaceMemberService;
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+
+    @Autowired
+    private UnreadCounter unreadCounter;
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private WorkspaceMemberRepository workspaceMemberRepository;
+
+    @Value("${invitation.expire-after:30d}")
+    private Duration expireAfter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // SEND
+    @Transactional
+    public WorkspaceInvitation invite(String inviterId, String workspaceId, String email, String role) {
+        // Validate role
+        if (!"VIEWER".equals(role) && !"EDITOR".equals(role)) {
+            throw new BadRequestException("Role must be VIEWER or EDITOR");
+        }
+
+        // Only the workspace owner can invite
+        permissionService.validateWorkspaceAccess(workspaceId, inviterId, WorkspaceRole.OWNER);
+
+        Workspace workspace = workspaceRepository.findById(workspaceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Workspace not found"));
+
+        User invitee = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
+
+        if (invitee.getId().equals(workspace.getOwner().getId())
+                || workspaceMemberService.isUserMember(workspaceId, invitee.getId())) {
+            throw new BadRequestException("User is already a member of this workspace");
+        }
+
+        WorkspaceInvitation invitation = invitationRepository.findByWorkspaceIdAndInviteeId(workspaceId, invitee.getId())
+                .orElseGet(() -> new WorkspaceInvitation(workspace, invitee));
+        if (invitation.getId() != null && WorkspaceInvitation.PENDING.equals(invitation.getStatus())) {
+            throw new BadRequestException("User already has a pending invitation to this workspace");
+        }
+
+        User inviter = userRepository.findById(inviterId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inviter not found"));
+
+        Notification notification = invitationNotification(workspace, inviter, invitee, role);
+        notificationService.createNotifications(List.of(notification));
+
+        invitation.open(inviter, WorkspaceRole.valueOf(role), notification.getId());
+        invitationRepository.save(invitation);
+
+        emailService.queueWorkspaceInvitations(List.of(invitee.getEmail()), inviter.getFullName(), workspace.getName());
+        return invitation;
+    }
+
+    /**
+     * Invites many users at once. Users, memberships and earlier invitations
+     * are each looked up with one IN query, and the notifications, invitations
+     * and emails are inserted as JDBC batches. A recipient that cannot be
+     * invited is reported in the result instead of failing the whole request.
+     */
+    @Transactional
+    public BulkResultDTO inviteAll(String inviterId, String workspaceId, List<BulkRecipientsRequest.Recipient> recipients) {
+        BulkRecipientsRequest.validateSize(recipients);
+
+        // Only the workspace owner can invite
+        permissionService.validateWorkspaceAccess(workspaceId, inviterId, WorkspaceRole.OWNER);
+
+        Workspace workspace = workspaceRepository.findById(workspaceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Workspace not found"));
+        User inviter = userRepository.findById(inviterId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inviter not found"));
+
+        Set<String> emails = new HashSet<>();
+        for (BulkRecipientsRequest.Recipient recipient : recipients) {
+            if (recipient.getEmail() != null) {
+                emails.add(recipient.getEmail().trim());
+            }
+        }
+        Map<String, User> usersByEmail = new HashMap<>();
+        for (User user : userRepository.findByEmailIn(emails)) {
+            usersByEmail.put(user.getEmail(), user);
+        }
+        Set<String> userIds = new HashSet<>();
+        usersByEmail.values().forEach(user -> userIds.add(user.getId()));
+        Set<String> members = new HashSet<>(workspaceMemberRepository.findMemberUserIds(workspaceId, userIds));
+        Map<String, WorkspaceInvitation> existing = new HashMap<>();
+        for (WorkspaceInvitation invitation : invitationRepository.findByWorkspaceIdAndInviteeIdIn(workspaceId, userIds)) {
+            existing.put(invitation.getInvitee().getId(), invitation);
+        }
+
+        BulkResultDTO result = new BulkResultDTO();
+        Set<String> seen = new HashSet<>();
+        List<Notification> notifications = new ArrayList<>();
+        List<WorkspaceInvitation> invitations = new ArrayList<>();
+        List<String> roles = new ArrayList<>();
+        List<BulkResultDTO.RecipientResult> invited = new ArrayList<>();
+        List<String> toEmails = new ArrayList<>();
+        for (BulkRecipientsRequest.Recipient recipient : recipients) {
+            String email = recipient.getEmail() == null ? null : recipient.getEmail().trim();
+            String role = recipient.getAccess() == null ? "VIEWER" : recipient.getAccess().toUpperCase();
+            User invitee = email == null ? null : usersByEmail.get(email);
+            if (email == null || email.isEmpty()) {
+                result.failed(email, "INVALID", "Email is required");
+            } else if (!seen.add(email)) {
+                result.failed(email, "DUPLICATE", "Email is listed more than once");
+            } else if (!"VIEWER".equals(role) && !"EDITOR".equals(role)) {
+                result.failed(email, "INVALID_ROLE", "Role must be VIEWER or EDITOR");
+            } else if (invitee == null) {
+                result.failed(email, "NOT_FOUND", "User not found with email: " + email);
+            } else if (invitee.getId().equals(workspace.getOwner().getId()) || members.contains(invitee.getId())) {
+                result.failed(email, "ALREADY_MEMBER", "User is already a member of this workspace");
+            } else if (existing.containsKey(invitee.getId())
+                    && WorkspaceInvitation.PENDING.equals(existing.get(invitee.getId()).getStatus())) {
+                result.failed(email, "ALREADY_INVITED", "User already has a pending invitation to this workspace");
+            } else {
+                notifications.add(invitationNotification(workspace, inviter, invitee, role));
+                invitations.add(existing.getOrDefault(invitee.getId(), new WorkspaceInvitation(workspace, invitee)));
+                roles.add(role);
+                invited.add(result.succeeded(email, "INVITED"));
+                toEmails.add(invitee.getEmail());
+            }
+        }
+        if (invitations.isEmpty()) {
+            return result;
+        }
+
+        notificationService.createNotifications(notifications);
+        for (int i = 0; i < invitations.size(); i++) {
+            invitations.get(i).open(inviter, WorkspaceRole.valueOf(roles.get(i)), notifications.get(i).getId());
+        }
+        invitationRepository.saveAll(invitations);
+        for (int i = 0; i < invitations.size(); i++) {
+            invited.get(i).setId(invitations.get(i).getId());
+        }
+        emailService.queueWorkspaceInvitations(toEmails, inviter.getFullName(), workspace.getName());
+        return result;
+    }
+
+    private Notification invitationNotification(Workspace workspace, User inviter, User invitee, String role) {
+        Notification notification = new Notification();
+        notification.setUser(invitee);
+        notification.setTitle("Workspace Invitation");
+        notification.setMessage(inviter.getFullName() + " invited you to join \"" + workspace.getName() + "\" as " + role);
+        notification.setType(NotificationType.WORKSPACE_INVITE);
+        notification.setMetadata(displayMetadata(workspace, inviter, role));
+        notification.setStatus(WorkspaceInvitation.PENDING);
+        notification.setIsRead(false);
+        return notification;
+    }
+
+    private String displayMetadata(Workspace workspace, User inviter, String role) {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("workspaceId", workspace.getId());
+        metadata.put("workspaceName", workspace.getName());
+        metadata.put("role", role);
+        metadata.put("inviterId", inviter.getId());
+        metadata.put("inviterName", inviter.getFullName());
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (Exception e) {
+            return "{}";
+        }
+    }
+
+    // RESPOND (by the id of the invitation's notification, which is what the invitee sees)
+    @Transactional
+    public void accept(String userId, String notificationId) {
+        WorkspaceInvitation invitation = findPendingForInvitee(userId, notificationId);
+        workspaceMemberService.addMember(invitation.getWorkspace().getId(), userId, invitation.getRole().name());
+        resolve(invitation, userId, WorkspaceInvitation.ACCEPTED);
+    }
+
+    @Transactional
+    public void decline(String userId, String notificationId) {
+        resolve(findPendingForInvitee(userId, notificationId), userId, WorkspaceInvitation.DECLINED);
+    }
+
+    private WorkspaceInvitation findPendingForInvitee(String userId, String notificationId) {
+        WorkspaceInvitation invitation = invitationRepository.findByNotificationId(notificationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Invitation not found"));
+
+        // Verify this invitation belongs to the current user
+        if (!invitation.getInvitee().getId().equals(userId)) {
+            throw new BadRequestException("This invitation is not for you");
+        }
+
+        // Check if already processed
+        if (!WorkspaceInvitation.PENDING.equals(invitation.getStatus())) {
+            throw new BadRequestException("This invitation has already been " + invitation.getStatus().toLowerCase());
+        }
+        return invitation;
+    }
+
+    private void resolve(WorkspaceInvitation invitation, String userId, String status) {
+        invitation.respond(status);
+        invitationRepository.save(invitation);
+
+        // markRead locks the row, so a concurrent mark-as-read cannot take it off the counter twice
+        String notificationId = invitation.getNotificationId();
+        int flipped = notificationRepository.markRead(notificationId);
+        if (notificationRepository.updateStatus(notificationId, status) > 0) {
+            notificationStreamService.notificationUpdated(userId, notificationId, true, status);
+            unreadCounter.adjust(userId, -flipped);
+        }
+    }
+
+    // READ
+    public List<WorkspaceInvitationDTO> getWorkspaceInvitations(String userId, String workspaceId, String status) {
+        permissionService.validateWorkspaceAccess(workspaceId, userId, WorkspaceRole.OWNER);
+        return invitationRepository.findByWorkspaceIdAndStatus(workspaceId, status.toUpperCase()).stream()
+                .map(dtoMapper::toWorkspaceInvitationDTO)
+                .toList();
+    }
+
+    // EXPIRY: pending invitations older than invitation.expire-after; their notifications are resolved as by resolve()
+    @Scheduled(cron = "${invitation.expiry.cron:0 30 3 * * *}")
+    @Transactional
+    public void expireStale() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime before = now.minus(expireAfter);
+
+        // Locked, so a concurrent mark-as-read cannot change what the counters are adjusted by
+        List<Object[]> notifications = invitationRepository.lockPendingNotificationsBefore(before);
+        Map<String, Long> unreadByUser = new HashMap<>();
+        for (Object[] row : notifications) {
+            if (!Boolean.TRUE.equals(row[2])) {
+                unreadByUser.merge((String) row[1], 1L, Long::sum);
+            }
+        }
+        unreadCounter.expireInvitations(before, unreadByUser);
+        invitationRepository.expirePendingNotificationsBefore(before);
+        int expired = invitationRepository.expirePendingBefore(before, now);
+
+        for (Object[] row : notifications) {
+            notificationStreamService.notificationUpdated((String) row[1], (String) row[0], true,
+                    WorkspaceInvitation.EXPIRED);
+        }
+        if (expired > 0) {
+            System.out.println("✅ Expired " + expired + " workspace invitations");
+        }
+    }
+
+    // Invitations created before workspace_invitations existed only live in notification metadata
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (invitationRepository.count() > 0) {
+            return;
+        }
+        int copied = invitationRepository.backfillFromNotifications();
+        if (copied > 0) {
+            System.out.println("✅ Copied " + copied + " workspace invitations out of notification metadata");
+        }
+    }
+}
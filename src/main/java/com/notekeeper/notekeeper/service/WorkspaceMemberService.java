@@ -40,6 +40,9 @@ public class WorkspaceMemberService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private PermissionCache permissionCache;
+
     @Transactional
     public void addMember(String workspaceId, String userId, String role) {
         if (!WorkspaceRole.isValid(role)) {
@@ -62,6 +65,7 @@ public class WorkspaceMemberService {
         WorkspaceMember member = new WorkspaceMember(workspace, user,
                 WorkspaceRole.valueOf(role.toUpperCase()));
         workspaceMemberRepository.save(member);
+        permissionCache.evictWorkspaceUser(workspaceId, user.getId());
 
         // CREATE NOTIFICATION - use resolved user ID
         notificationService.createNotification(
@@ -71,8 +75,8 @@ public class WorkspaceMemberService {
                 com.notekeeper.notekeeper.model.NotificationType.SHARE
         );
 
-        // SEND EMAIL
-        emailService.sendShareNotification(
+        // QUEUE EMAIL (sent after commit by OutboxDispatcher)
+        emailService.queueShareNotification(
                 user.getEmail(),
                 workspace.getOwner().getFullName(),
                 workspace.getName(),
@@ -91,6 +95,7 @@ public class WorkspaceMemberService {
         }
 
         workspaceMemberRepository.delete(member);
+        permissionCache.evictWorkspaceUser(workspaceId, userId);
     }
 
     @Transactional
@@ -108,6 +113,7 @@ public class WorkspaceMemberService {
 
         member.setRole(WorkspaceRole.valueOf(newRole.toUpperCase()));
         workspaceMemberRepository.save(member);
+        permissionCache.evictWorkspaceUser(workspaceId, userId);
     }
 
     public List<WorkspaceMemberDTO> getWorkspaceMembers(String workspaceId) {
@@ -1,5 +1,6 @@
 package com.notekeeper.notekeeper.service;
 
+import com.notekeeper.notekeeper.dto.CursorPageDTO;
 import com.notekeeper.notekeeper.model.Workspace;
 import com.notekeeper.notekeeper.model.WorkspaceMember;
 import com.notekeeper.notekeeper.repository.WorkspaceRepository;
@@ -24,6 +25,9 @@ public class WorkspaceService {
     @Autowired
     private WorkspaceMemberRepository workspaceMemberRepository;
 
+    @Autowired
+    private PermissionCache permissionCache;
+
     // CREATE
     @Transactional
     public String createWorkspace(Workspace workspace) {
@@ -88,6 +92,7 @@ public class WorkspaceService {
         }
 
         workspaceRepository.delete(workspace);
+        permissionCache.evictWorkspace(id);
     }
 
     // SORTING
@@ -103,6 +108,21 @@ public class WorkspaceService {
         return workspaceRepository.findAll(PageRequest.of(page, size));
     }
 
+    // Keyset pagination: constant cost at any depth, total only counted on request
+    public CursorPageDTO<Workspace> getWorkspacesByCursor(String cursor, int size, boolean includeTotal) {
+        KeysetCursor.validateSize(size);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Workspace> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = workspaceRepository.findWorkspacesFirst(limit);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = workspaceRepository.findWorkspacesAfter(after.getTimestamp(), after.getId(), limit);
+        }
+        Long total = includeTotal ? workspaceRepository.count() : null;
+        return CursorPageDTO.of(rows, size, w -> KeysetCursor.encode(w.getCreatedAt(), w.getId()), total);
+    }
+
     public Page<Workspace> getOwnerWorkspacesPaginated(String ownerId, int page, int size) {
         return workspaceRepository.findByOwnerId(ownerId, PageRequest.of(page, size));
     }
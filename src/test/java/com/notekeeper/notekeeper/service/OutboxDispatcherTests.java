@@ -0,0 +1,213 @@
+package com.notekeeper.notekeeper.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.notekeeper.notekeeper.model.OutboxMessage;
+import com.notekeeper.notekeeper.repository.OutboxMessageRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sends through GreenMail, an SMTP server running inside the test JVM
+@SpringBootTest(properties = {
+		// Dispatched by the tests, never by the scheduler
+		"outbox.dispatch.initial-delay=3600000",
+		"outbox.dispatch.interval=3600000",
+		"outbox.max-attempts=3",
+		"outbox.retry.initial-backoff=30s"
+})
+class OutboxDispatcherTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	@Autowired
+	private OutboxDispatcher outboxDispatcher;
+
+	@Autowired
+	private OutboxMessageRepository outboxMessageRepository;
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private CountingMailSender mailSender;
+
+	// Counts SMTP connections, so a test can check that a batch shares one
+	static class CountingMailSender extends JavaMailSenderImpl {
+		private final AtomicInteger connections = new AtomicInteger();
+
+		@Override
+		protected Transport connectTransport() throws MessagingException {
+			connections.incrementAndGet();
+			return super.connectTransport();
+		}
+	}
+
+	@TestConfiguration
+	static class MailConfig {
+		@Bean
+		CountingMailSender mailSender() {
+			CountingMailSender mailSender = new CountingMailSender();
+			mailSender.setHost("localhost");
+			mailSender.setPort(ServerSetupTest.SMTP.getPort());
+			return mailSender;
+		}
+	}
+
+	@BeforeAll
+	static void setup() {
+		Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+		dotenv.entries().forEach(entry -> System.setProperty(entry.getKey(), entry.getValue()));
+	}
+
+	@BeforeEach
+	void clearOutbox() {
+		outboxMessageRepository.deleteAll();
+		mailSender.connections.set(0);
+	}
+
+	@Test
+	void sendsClaimedBatchOverOneConnectionAndSkipsLockedRows() throws Exception {
+		List<OutboxMessage> rows = outboxMessageRepository.saveAll(List.of(
+				new OutboxMessage("first@example.com", "Subject", "Body"),
+				new OutboxMessage("second@example.com", "Subject", "Body"),
+				new OutboxMessage("third@example.com", "Subject", "Body")));
+
+		// Another dispatcher holds the lock on one due row until released
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicReference<String> lockedId = new AtomicReference<>();
+		Thread other = new Thread(() -> transactionTemplate.executeWithoutResult(status -> {
+			lockedId.set(outboxMessageRepository.claimDue(LocalDateTime.now(), 1).get(0).getId());
+			locked.countDown();
+			try {
+				release.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		other.start();
+		try {
+			assertTrue(locked.await(30, TimeUnit.SECONDS));
+
+			outboxDispatcher.dispatch();
+
+			assertEquals(2, greenMail.getReceivedMessages().length);
+			assertEquals(1, mailSender.connections.get());
+			assertEquals(List.of(lockedId.get()), outboxMessageRepository.findAll().stream()
+					.map(OutboxMessage::getId).toList());
+		} finally {
+			release.countDown();
+			other.join();
+		}
+
+		outboxDispatcher.dispatch();
+
+		assertEquals(rows.size(), greenMail.getReceivedMessages().length);
+		assertEquals(0, outboxMessageRepository.count());
+	}
+
+	@Test
+	void reschedulesOnlyTheFailedMessagesOfABatch() {
+		// An empty group parses, but leaves nothing to RCPT, so the server rejects that message alone
+		OutboxMessage rejected = new OutboxMessage("undisclosed-recipients:;", "Subject", "Body");
+		OutboxMessage unparsable = new OutboxMessage("first..last@example.com", "Subject", "Body");
+		outboxMessageRepository.saveAll(List.of(
+				new OutboxMessage("first@example.com", "Subject", "Body"),
+				rejected,
+				unparsable,
+				new OutboxMessage("second@example.com", "Subject", "Body")));
+
+		LocalDateTime before = LocalDateTime.now();
+		outboxDispatcher.dispatch();
+		LocalDateTime after = LocalDateTime.now();
+
+		assertEquals(List.of("first@example.com", "second@example.com"), Arrays.stream(greenMail.getReceivedMessages())
+				.map(OutboxDispatcherTests::recipient).sorted().toList());
+		assertEquals(1, mailSender.connections.get());
+		assertEquals(2, outboxMessageRepository.count());
+
+		OutboxMessage retry = outboxMessageRepository.findById(rejected.getId()).orElseThrow();
+		assertEquals(OutboxMessage.PENDING, retry.getStatus());
+		assertEquals(1, retry.getAttempts());
+		assertTrue(retry.getLastError().contains("503"), retry.getLastError());
+		assertFalse(retry.getNextAttemptAt().isBefore(before.plusSeconds(30)));
+		assertFalse(retry.getNextAttemptAt().isAfter(after.plusSeconds(30)));
+
+		// Retrying would never fix the address, so it fails at once
+		OutboxMessage bad = outboxMessageRepository.findById(unparsable.getId()).orElseThrow();
+		assertEquals(OutboxMessage.FAILED, bad.getStatus());
+		assertEquals(1, bad.getAttempts());
+	}
+
+	@Test
+	void marksMessageFailedAfterMaxAttempts() {
+		OutboxMessage row = new OutboxMessage("undisclosed-recipients:;", "Subject", "Body");
+		row.setAttempts(2);
+		outboxMessageRepository.save(row);
+
+		outboxDispatcher.dispatch();
+
+		OutboxMessage failed = outboxMessageRepository.findById(row.getId()).orElseThrow();
+		assertEquals(OutboxMessage.FAILED, failed.getStatus());
+		assertEquals(3, failed.getAttempts());
+		assertEquals(0, greenMail.getReceivedMessages().length);
+
+		// Never claimed again
+		outboxDispatcher.dispatch();
+		assertEquals(3, outboxMessageRepository.findById(row.getId()).orElseThrow().getAttempts());
+	}
+
+	@Test
+	void sendsNothingForRolledBackTransaction() {
+		transactionTemplate.executeWithoutResult(status -> {
+			emailService.queueShareNotification("rolledback@example.com", "Alice", "Plans", "Page");
+			status.setRollbackOnly();
+		});
+		transactionTemplate.executeWithoutResult(status ->
+				emailService.queueShareNotification("committed@example.com", "Alice", "Plans", "Page"));
+
+		assertEquals(1, outboxMessageRepository.count());
+
+		outboxDispatcher.dispatch();
+
+		assertEquals(List.of("committed@example.com"), Arrays.stream(greenMail.getReceivedMessages())
+				.map(OutboxDispatcherTests::recipient).toList());
+		assertEquals(0, outboxMessageRepository.count());
+	}
+
+	private static String recipient(MimeMessage message) {
+		try {
+			return message.getAllRecipients()[0].toString();
+		} catch (MessagingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package com.notekeeper.notekeeper.service;
+
+import com.notekeeper.notekeeper.model.Attachment;
+import com.notekeeper.notekeeper.model.Page;
+import com.notekeeper.notekeeper.model.UploadSession;
+import com.notekeeper.notekeeper.model.User;
+import com.notekeeper.notekeeper.model.Workspace;
+import com.notekeeper.notekeeper.repository.AttachmentBlobRepository;
+import com.notekeeper.notekeeper.repository.AttachmentRepository;
+import com.notekeeper.notekeeper.repository.PageRepository;
+import com.notekeeper.notekeeper.repository.UploadSessionRepository;
+import com.notekeeper.notekeeper.repository.UserRepository;
+import com.notekeeper.notekeeper.repository.WorkspaceRepository;
+import io.github.cdimascio.dotenv.Dotenv;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the collector over a temporary upload directory; file references come from the real database
+@SpringBootTest(properties = {
+		// Run by the tests, never by the scheduler
+		"attachment.gc.initial-delay=3600000",
+		"attachment.gc.interval=3600000",
+		"attachment.gc.min-age=1d",
+		"attachment.gc.quarantine-period=7d"
+})
+class UploadGarbageCollectorTests {
+
+	private static final Path uploadRoot = createUploadRoot();
+
+	@Autowired
+	private UploadGarbageCollector uploadGarbageCollector;
+
+	@Autowired
+	private AttachmentBlobStore attachmentBlobStore;
+
+	@Autowired
+	private AttachmentRepository attachmentRepository;
+
+	@Autowired
+	private AttachmentBlobRepository attachmentBlobRepository;
+
+	@Autowired
+	private PageRepository pageRepository;
+
+	@Autowired
+	private UploadSessionRepository uploadSessionRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private WorkspaceRepository workspaceRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private User user;
+	private Page page;
+	private final List<Attachment> attachments = new ArrayList<>();
+	private final List<UploadSession> sessions = new ArrayList<>();
+	private final List<String> blobHashes = new ArrayList<>();
+
+	@BeforeAll
+	static void setup() {
+		Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+		dotenv.entries().forEach(entry -> System.setProperty(entry.getKey(), entry.getValue()));
+	}
+
+	@DynamicPropertySource
+	static void uploadDir(DynamicPropertyRegistry registry) {
+		registry.add("file.upload.dir", () -> uploadRoot + "/");
+	}
+
+	@BeforeEach
+	void createPage() throws IOException {
+		clear(uploadRoot);
+		ReflectionTestUtils.setField(uploadGarbageCollector, "cursor", null);
+		ReflectionTestUtils.setField(uploadGarbageCollector, "batchSize", 500);
+		ReflectionTestUtils.setField(uploadGarbageCollector, "filesPerRun", 2000);
+
+		user = userRepository.findByUsername("jessica_admin").orElseThrow();
+		Workspace workspace = workspaceRepository.findByOwnerIdAndIsDefaultTrue(user.getId()).orElseThrow();
+		page = pageRepository.save(new Page("Upload GC test", "", user, workspace));
+	}
+
+	@AfterEach
+	void deleteRows() {
+		attachmentRepository.deleteAll(attachments);
+		uploadSessionRepository.deleteAll(sessions);
+		attachmentBlobRepository.deleteAllById(blobHashes);
+		pageRepository.delete(page);
+	}
+
+	@Test
+	void keepsReferencedFilesAndQuarantinesOrphans() throws IOException {
+		Path attached = attach(file("legacy.pdf"));
+		Path photo = attach(file("photo.jpg"));
+		Path liveVariant = file("photo.jpg.thumb.jpg");
+		Path cover = file("covers/cover.jpg");
+		page.setCoverImage(cover.toString());
+		page = pageRepository.save(page);
+		Path staging = file(".staging/upload-1");
+		UploadSession session = new UploadSession(page.getId(), user.getId(), "big.bin", "application/octet-stream",
+				10, staging.toString());
+		session.setExpiresAt(LocalDateTime.now().plusDays(1));
+		sessions.add(uploadSessionRepository.save(session));
+
+		Path orphan = file("nested/dir/orphan.txt");
+		Path orphanImage = file("old.jpg");
+		Path variantOfOrphan = file("old.jpg.full.jpg");
+		Path strayVariant = file("gone.png.card.png");
+		Path young = Files.writeString(uploadRoot.resolve("young.txt"), "just uploaded");
+		Path incoming = file(".incoming/multipart-1.tmp");
+
+		uploadGarbageCollector.run();
+
+		for (Path kept : List.of(attached, photo, liveVariant, cover, staging, young, incoming)) {
+			assertTrue(Files.exists(kept), kept + " should be kept");
+		}
+		assertFalse(Files.exists(orphan));
+		assertTrue(Files.exists(uploadRoot.resolve(".quarantine/nested/dir/orphan.txt")));
+		assertFalse(Files.exists(orphanImage));
+		assertTrue(Files.exists(uploadRoot.resolve(".quarantine/old.jpg")));
+		// Variants are not quarantined, only deleted once their original is gone
+		assertFalse(Files.exists(variantOfOrphan));
+		assertFalse(Files.exists(strayVariant));
+
+		// A new pass leaves the quarantine alone, even for files older than min-age
+		Path quarantined = uploadRoot.resolve(".quarantine/nested/dir/orphan.txt");
+		age(quarantined, Duration.ofDays(2));
+		uploadGarbageCollector.run();
+		assertTrue(Files.exists(quarantined));
+		assertFalse(Files.exists(uploadRoot.resolve(".quarantine/.quarantine")));
+	}
+
+	@Test
+	void purgesQuarantineAfterQuarantinePeriod() throws IOException {
+		file("nested/orphan.txt");
+		uploadGarbageCollector.run();
+
+		Path quarantined = uploadRoot.resolve(".quarantine/nested/orphan.txt");
+		assertTrue(Files.exists(quarantined));
+		// The quarantine period starts when the file is moved, not at its original mtime
+		assertTrue(Files.getLastModifiedTime(quarantined).toInstant().isAfter(Instant.now().minusSeconds(60)));
+
+		uploadGarbageCollector.run();
+		assertTrue(Files.exists(quarantined));
+
+		age(quarantined, Duration.ofDays(8));
+		uploadGarbageCollector.run();
+		assertFalse(Files.exists(quarantined));
+		assertFalse(Files.exists(quarantined.getParent()));
+		assertTrue(Files.isDirectory(uploadRoot.resolve(".quarantine")));
+	}
+
+	@Test
+	void resumesAfterLastCheckedFile() throws IOException {
+		ReflectionTestUtils.setField(uploadGarbageCollector, "batchSize", 2);
+		ReflectionTestUtils.setField(uploadGarbageCollector, "filesPerRun", 2);
+
+		// Walk order is a/x, a/y, a-b, a.txt, b: a directory sorts by its own name, before "a-" and "a."
+		Path ax = file("a/x");
+		Path ay = attach(file("a/y"));
+		Path ab = file("a-b");
+		Path atxt = file("a.txt");
+		Path b = file("b");
+
+		uploadGarbageCollector.run();
+		assertFalse(Files.exists(ax));
+		assertTrue(Files.exists(ay));
+		assertTrue(Files.exists(ab));
+		assertTrue(Files.exists(atxt));
+		assertTrue(Files.exists(b));
+
+		uploadGarbageCollector.run();
+		assertFalse(Files.exists(ab));
+		assertFalse(Files.exists(atxt));
+		assertTrue(Files.exists(b));
+
+		uploadGarbageCollector.run();
+		assertFalse(Files.exists(b));
+		assertTrue(Files.exists(ay));
+		assertEquals(4, countFiles(uploadRoot.resolve(".quarantine")));
+	}
+
+	@Test
+	void reclaimsUnreferencedBlobAndCorrectsRefCount() throws IOException {
+		// Attachments deleted by cascade never released these references
+		String orphanHash = blob("no attachment left", 2);
+		String sharedHash = blob("one attachment left", 5);
+		Path orphanBlob = attachmentBlobStore.pathOf(orphanHash);
+		Path sharedBlob = attach(attachmentBlobStore.pathOf(sharedHash));
+
+		uploadGarbageCollector.run();
+
+		assertFalse(Files.exists(orphanBlob));
+		assertTrue(Files.exists(uploadRoot.resolve(".quarantine").resolve(uploadRoot.relativize(orphanBlob))));
+		assertFalse(attachmentBlobRepository.existsById(orphanHash));
+		assertTrue(Files.exists(sharedBlob));
+
+		// Referenced again by the time the row is locked: kept, with ref_count set to the real count
+		Path target = uploadRoot.resolve(".quarantine").resolve(uploadRoot.relativize(sharedBlob));
+		assertFalse(attachmentBlobStore.reclaim(sharedHash, target));
+		assertTrue(Files.exists(sharedBlob));
+		assertFalse(Files.exists(target));
+		assertEquals(1, attachmentBlobRepository.findById(sharedHash).orElseThrow().getRefCount());
+	}
+
+	// An upload file old enough for the collector to look at
+	private Path file(String relativePath) throws IOException {
+		Path file = uploadRoot.resolve(relativePath);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, relativePath);
+		age(file, Duration.ofDays(2));
+		return file;
+	}
+
+	private Path attach(Path file) throws IOException {
+		attachments.add(attachmentRepository.save(new Attachment(file.getFileName().toString(),
+				"application/octet-stream", Files.size(file), file.toString(), page, user)));
+		return file;
+	}
+
+	private String blob(String content, int refCount) throws IOException {
+		Path staged = Files.createTempFile(uploadRoot, "blob", ".tmp");
+		Files.writeString(staged, content);
+		String hash = AttachmentService.sha256(staged);
+		Path path = attachmentBlobStore.pathOf(hash);
+		Files.createDirectories(path.getParent());
+		Files.move(staged, path);
+		age(path, Duration.ofDays(2));
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < refCount; i++) {
+				attachmentBlobRepository.acquire(hash, content.getBytes(StandardCharsets.UTF_8).length, path.toString());
+			}
+		});
+		blobHashes.add(hash);
+		return hash;
+	}
+
+	private static void age(Path file, Duration age) throws IOException {
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+	}
+
+	private static long countFiles(Path dir) throws IOException {
+		try (Stream<Path> walk = Files.walk(dir)) {
+			return walk.filter(Files::isRegularFile).count();
+		}
+	}
+
+	private static void clear(Path dir) throws IOException {
+		try (Stream<Path> walk = Files.walk(dir)) {
+			for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+				if (!path.equals(dir)) {
+					Files.delete(path);
+				}
+			}
+		}
+	}
+
+	private static Path createUploadRoot() {
+		try {
+			return Files.createTempDirectory("upload-gc-test");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}